@@ -0,0 +1,66 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+/**
+ * 검색 - H2 vs 메모리 열 인덱스 (ColumnarIndexFixture.columnarIndex)
+ * username(해시), 팀 + 나이 범위(팀 목록), 나이 범위만(정렬 순열) 으로 후보를 고르는 경우를 각각 잰다.
+ */
+@State(Scope.Benchmark)
+public class ColumnarIndexBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private MemberSearchCondition byUsername;
+    private MemberSearchCondition byTeamAndAge;
+    private MemberSearchCondition byAge;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp(ColumnarIndexFixture fixture) {
+        memberJpaRepository = fixture.getBean(MemberJpaRepository.class);
+        memberRepository = fixture.getBean(MemberRepository.class);
+
+        byUsername = new MemberSearchCondition();
+        byUsername.setUsername(H2Fixture.username(fixture.members / 2));
+
+        byTeamAndAge = new MemberSearchCondition();
+        byTeamAndAge.setTeamname(H2Fixture.teamname(7));
+        byTeamAndAge.setAgeGoe(20);
+        byTeamAndAge.setAgeLoe(40);
+
+        byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(30);
+        byAge.setAgeLoe(31);
+
+        pageable = PageRequest.of(2, 20);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByUsername() {
+        return memberJpaRepository.search(byUsername);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByTeamAndAge() {
+        return memberJpaRepository.search(byTeamAndAge);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageByAge() {
+        return memberRepository.searchPageComplex(byAge, pageable);
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * H2Fixture + 메모리 열 인덱스 on/off
+ * 적재는 인덱스를 읽은 뒤에 하므로 delta/compaction 을 거친 상태를 측정한다.
+ */
+@State(Scope.Benchmark)
+public class ColumnarIndexFixture extends H2Fixture {
+
+    @Param({"false", "true"})
+    public boolean columnarIndex;
+
+    @Override
+    protected List<String> contextArgs() {
+        List<String> args = super.contextArgs();
+        args.add("--member.columnar-index.enabled=" + columnarIndex);
+        return args;
+    }
+}
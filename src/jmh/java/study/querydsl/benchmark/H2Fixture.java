@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.repository.MemberBulkLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크 공통 - 내장(in-memory) H2 로 애플리케이션을 띄우고 데이터를 적재한다.
+ * teams 개 팀에 members 명을 고르게 나누고, 나이는 0 ~ 99 로 분포시킨다.
+ */
+@State(Scope.Benchmark)
+public class H2Fixture {
+
+    @Param("100000")
+    public int members;
+
+    @Param("100")
+    public int teams;
+
+    public ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+                .run(contextArgs().toArray(new String[0]));
+
+        List<String> teamnames = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            teamnames.add(teamname(i));
+        }
+        context.getBean(MemberBulkLoader.class).load(teamnames, memberCount(),
+                i -> new MemberBulkLoader.Row(username(i), (int) (i % 100), teamname((int) (i % teams))));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 적재할 회원 수 - 하위 fixture 에서 바꿀 수 있도록 열어둔다.
+     */
+    protected long memberCount() {
+        return members;
+    }
+
+    /**
+     * 하위 벤치마크에서 설정을 덧붙일 수 있도록 열어둔다.
+     */
+    protected List<String> contextArgs() {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.profiles.active=bench");
+        args.add("--spring.main.banner-mode=off");
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        args.add("--spring.jpa.properties.hibernate.use_sql_comments=false");
+        args.add("--spring.jpa.properties.hibernate.format_sql=false");
+        args.add("--logging.level.root=warn");
+        args.add("--logging.level.org.hibernate.SQL=off");
+        args.add("--logging.level.org.hibernate.type=off");
+        // 캐시 적중이 아니라 DB 경로를 측정한다.
+        args.add("--member.search.count-cache.enabled=false");
+        args.add("--member.search.result-cache.enabled=false");
+        args.add("--member.search.coalescing.enabled=false");
+        args.add("--member.bulk-load.chunk-size=5000");
+        return args;
+    }
+
+    public static String teamname(int i) {
+        return "team" + i;
+    }
+
+    public static String username(long i) {
+        return "member" + i;
+    }
+}
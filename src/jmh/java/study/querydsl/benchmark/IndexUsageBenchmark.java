@@ -0,0 +1,126 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.metrics.QueryMetricsRegistry;
+import study.querydsl.metrics.QueryMetricsSnapshot;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색조건 조합(username / teamname / ageGoe / ageLoe 의 15가지)별 검색 시간 - 인덱스 있음 vs 없음
+ * 시작할 때 실제 SQL 의 실행계획(H2 EXPLAIN)을 출력해서 인덱스를 타는지(FULL SCAN 이 아닌지) 보여준다.
+ *
+ * 조합 x 인덱스 유무마다 100만 건을 다시 적재하므로 오래 걸린다. (-PjmhIncludes=IndexUsageBenchmark)
+ */
+@State(Scope.Benchmark)
+public class IndexUsageBenchmark {
+
+    private static final int USERNAME = 1;
+    private static final int TEAMNAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final String[] INDEXES = {
+            "idx_member_username", "idx_member_age", "idx_member_team_age", "idx_team_teamname"
+    };
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
+    public int shape;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(LargeH2Fixture fixture) {
+        memberJpaRepository = fixture.getBean(MemberJpaRepository.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(fixture.getBean(DataSource.class));
+        if (!indexed) {
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("drop index if exists " + index);
+            }
+        }
+        jdbcTemplate.execute("analyze");
+
+        condition = condition(shape, fixture);
+        printPlan(fixture, jdbcTemplate);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberJpaRepository.search(condition);
+    }
+
+    /**
+     * 조건마다 결과가 적게 나오는 값을 고른다. (나이는 0 ~ 99 고르게 분포)
+     */
+    private static MemberSearchCondition condition(int shape, LargeH2Fixture fixture) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & USERNAME) != 0) {
+            condition.setUsername(H2Fixture.username(fixture.rows / 2));
+        }
+        if ((shape & TEAMNAME) != 0) {
+            condition.setTeamname(H2Fixture.teamname(7));
+        }
+        boolean range = (shape & AGE_GOE) != 0 && (shape & AGE_LOE) != 0;
+        if ((shape & AGE_GOE) != 0) {
+            condition.setAgeGoe(range ? 50 : 99);
+        }
+        if ((shape & AGE_LOE) != 0) {
+            condition.setAgeLoe(range ? 50 : 0);
+        }
+        return condition;
+    }
+
+    /**
+     * 한 번 검색해서 실제로 나간 SQL(QueryMetricsRegistry) 을 EXPLAIN 한다.
+     */
+    private void printPlan(LargeH2Fixture fixture, JdbcTemplate jdbcTemplate) {
+        QueryMetricsRegistry registry = fixture.getBean(QueryMetricsRegistry.class);
+        registry.reset();
+        memberJpaRepository.search(condition);
+
+        String sql = registry.statements().stream()
+                .map(QueryMetricsSnapshot::getName)
+                .filter(name -> name.startsWith("select"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("search did not run a select"));
+
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, parameters().toArray());
+        boolean fullScan = plan != null && plan.toUpperCase().contains("MEMBER.TABLESCAN");
+        System.out.println("[shape=" + shape + ", indexed=" + indexed + "] " + (fullScan ? "FULL SCAN" : "INDEX") + "\n" + plan);
+    }
+
+    /**
+     * MemberSearchQueryTemplates 의 바인딩 순서와 같다.
+     */
+    private List<Object> parameters() {
+        List<Object> parameters = new ArrayList<>();
+        if (condition.getUsername() != null) {
+            parameters.add(condition.getUsername());
+        }
+        if (condition.getTeamname() != null) {
+            parameters.add(condition.getTeamname());
+        }
+        if (condition.getAgeGoe() != null) {
+            parameters.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            parameters.add(condition.getAgeLoe());
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.json.MemberTeamJsonWriter;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * /v1/memberSearch 응답 쓰기 - DTO + Jackson vs MemberTeamJsonWriter
+ * 한 팀(members / teams 명)을 조회한다. 할당량은 gc 프로파일러의 gc.alloc.rate.norm (B/op) 으로 비교한다.
+ *
+ * - *FromDb : 조회 + 쓰기 (search -> Jackson vs searchRows -> writer)
+ * - *Only : 이미 조회한 목록을 쓰기만
+ */
+@State(Scope.Benchmark)
+public class JsonWriterBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private ObjectMapper objectMapper;
+    private MemberTeamJsonWriter memberTeamJsonWriter;
+    private MemberSearchCondition condition;
+    private List<MemberTeamDto> content;
+
+    @Setup(Level.Trial)
+    public void setUp(H2Fixture fixture) {
+        memberJpaRepository = fixture.getBean(MemberJpaRepository.class);
+        objectMapper = fixture.getBean(ObjectMapper.class);
+        memberTeamJsonWriter = fixture.getBean(MemberTeamJsonWriter.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamname(H2Fixture.teamname(7));
+        content = memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public long jacksonFromDb() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, memberJpaRepository.search(condition));
+        return out.count;
+    }
+
+    @Benchmark
+    public long directFromDb() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (MemberTeamJsonWriter.Rows rows = memberTeamJsonWriter.open(out)) {
+            memberJpaRepository.searchRows(condition, rows);
+            rows.finish();
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long jacksonOnly() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, content);
+        return out.count;
+    }
+
+    @Benchmark
+    public long directOnly() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        memberTeamJsonWriter.writeAll(out, content);
+        return out.count;
+    }
+
+    /**
+     * 응답 대신 - 쓴 바이트 수만 센다.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 인덱스 효과를 보기 위한 대용량 fixture - members 대신 rows 만큼 적재한다.
+ */
+@State(Scope.Benchmark)
+public class LargeH2Fixture extends H2Fixture {
+
+    @Param("1000000")
+    public long rows;
+
+    @Override
+    protected long memberCount() {
+        return rows;
+    }
+}
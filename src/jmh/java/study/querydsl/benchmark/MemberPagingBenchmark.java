@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberCursorSlice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberCursor;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 페이지 깊이에 따른 offset 페이징 vs 커서(keyset) 페이징
+ * offset 은 깊이에 비례해서 느려지고, 커서는 일정해야 한다.
+ * 둘 다 member_id 순으로 정렬하고 카운트 없이 size + 1 건만 읽는다. (offset 은 searchSliceNoCount)
+ */
+@State(Scope.Benchmark)
+public class MemberPagingBenchmark {
+
+    private static final int SIZE = 20;
+
+    @Param({"0", "100", "1000", "4000"})
+    public int page;
+
+    private MemberRepository memberRepository;
+    private MemberSearchCondition condition;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp(H2Fixture fixture) {
+        memberRepository = fixture.getBean(MemberRepository.class);
+        condition = new MemberSearchCondition();
+
+        // 해당 페이지 직전 행의 id 로 커서를 만든다.
+        if (page > 0) {
+            EntityManager em = fixture.getBean(EntityManagerFactory.class).createEntityManager();
+            try {
+                Long lastId = new JPAQueryFactory(em)
+                        .select(member.id)
+                        .from(member)
+                        .orderBy(member.id.asc())
+                        .offset((long) page * SIZE - 1)
+                        .limit(1)
+                        .fetchOne();
+                cursor = MemberCursor.encode(lastId);
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> offset() {
+        return memberRepository.searchSliceNoCount(condition, PageRequest.of(page, SIZE));
+    }
+
+    @Benchmark
+    public MemberCursorSlice keyset() {
+        return memberRepository.searchSlice(condition, cursor, SIZE);
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchQueryTemplates;
+
+import java.util.List;
+
+/**
+ * 검색 - BooleanBuilder vs where 파라미터(템플릿), 페이징 - simple vs complex
+ * searchTemplates 는 캐시/합치기를 거치지 않고 템플릿 조회만 잰다. (호출당 할당량은 gc 프로파일러의 gc.alloc.rate.norm)
+ */
+@State(Scope.Benchmark)
+public class MemberSearchBenchmark {
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+    private MemberSearchQueryTemplates searchQueryTemplates;
+    private MemberSearchCondition condition;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp(H2Fixture fixture) {
+        memberJpaRepository = fixture.getBean(MemberJpaRepository.class);
+        memberRepository = fixture.getBean(MemberRepository.class);
+        searchQueryTemplates = fixture.getBean(MemberSearchQueryTemplates.class);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamname(H2Fixture.teamname(7));
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        pageable = PageRequest.of(2, 20);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchTemplates() {
+        return searchQueryTemplates.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 페이징 검색 - 카운트 쿼리를 순서대로 실행 vs 데이터 조회와 동시에 실행
+ * sample 모드의 p50/p99 로 비교한다. (카운트 캐시는 H2Fixture 에서 꺼져 있음)
+ * firstPageConcurrent : 동시 요청이 커넥션 풀/카운트 스레드를 나눠 쓸 때의 꼬리 지연
+ */
+@State(Scope.Benchmark)
+public class ParallelCountBenchmark {
+
+    private static final int SIZE = 20;
+
+    private MemberRepository memberRepository;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp(ParallelCountFixture fixture) {
+        memberRepository = fixture.getBean(MemberRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(80);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Page<MemberTeamDto> firstPage() {
+        return memberRepository.searchPageComplex(condition, PageRequest.of(0, SIZE));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page<MemberTeamDto> firstPageConcurrent() {
+        return memberRepository.searchPageComplex(condition, PageRequest.of(0, SIZE));
+    }
+}
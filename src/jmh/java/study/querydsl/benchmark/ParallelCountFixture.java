@@ -0,0 +1,24 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * H2Fixture + 카운트 병렬 실행 on/off
+ */
+@State(Scope.Benchmark)
+public class ParallelCountFixture extends H2Fixture {
+
+    @Param({"false", "true"})
+    public boolean parallelCount;
+
+    @Override
+    protected List<String> contextArgs() {
+        List<String> args = super.contextArgs();
+        args.add("--member.search.parallel-count.enabled=" + parallelCount);
+        return args;
+    }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.projection.FastProjections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * DTO 프로젝션 방식 비교 - Projections.bean / fields / constructor vs FastProjections vs @QueryProjection
+ * 한 팀(members / teams 명)을 조회한다.
+ */
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+    private String teamname;
+
+    @Setup(Level.Trial)
+    public void setUp(H2Fixture fixture) {
+        em = fixture.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        teamname = H2Fixture.teamname(3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() {
+        return queryFactory.select(Projections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() {
+        return queryFactory.select(Projections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() {
+        return queryFactory.select(Projections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fastBean() {
+        return queryFactory.select(FastProjections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fastFields() {
+        return queryFactory.select(FastProjections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fastConstructor() {
+        return queryFactory.select(FastProjections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() {
+        return queryFactory.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberTeamConstructor() {
+        return queryFactory.select(Projections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.teamname))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> memberTeamQueryProjection() {
+        return queryFactory.select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.teamname))
+                .from(member)
+                .join(member.team, team)
+                .where(team.teamname.eq(teamname))
+                .fetch();
+    }
+}
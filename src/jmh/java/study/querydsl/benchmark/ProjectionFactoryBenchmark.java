@@ -0,0 +1,92 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.userDto;
+import study.querydsl.projection.FastProjections;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * DB 없이 행 -> DTO 변환 비용만 측정 (행 하나당)
+ * Projections(리플렉션) vs FastProjections(LambdaMetafactory / MethodHandle)
+ */
+@State(Scope.Benchmark)
+public class ProjectionFactoryBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private Object[][] rows;
+
+    private FactoryExpression<MemberDto> bean;
+    private FactoryExpression<MemberDto> fastBean;
+    private FactoryExpression<userDto> fields;
+    private FactoryExpression<userDto> fastFields;
+    private FactoryExpression<MemberDto> constructor;
+    private FactoryExpression<MemberDto> fastConstructor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+
+        bean = Projections.bean(MemberDto.class, member.username, member.age);
+        fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+        fields = Projections.fields(userDto.class, member.username.as("name"), member.age);
+        fastFields = FastProjections.fields(userDto.class, member.username.as("name"), member.age);
+        constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        fastConstructor = FastProjections.constructor(MemberDto.class, member.username, member.age);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void bean(Blackhole bh) {
+        run(bean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastBean(Blackhole bh) {
+        run(fastBean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fields(Blackhole bh) {
+        run(fields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastFields(Blackhole bh) {
+        run(fastFields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void constructor(Blackhole bh) {
+        run(constructor, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastConstructor(Blackhole bh) {
+        run(fastConstructor, bh);
+    }
+
+    private void run(FactoryExpression<?> projection, Blackhole bh) {
+        for (Object[] row : rows) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
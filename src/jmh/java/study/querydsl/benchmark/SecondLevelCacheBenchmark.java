@@ -0,0 +1,110 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.repository.cache.SecondLevelCacheStatistics;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Team 2차 캐시 on/off (SecondLevelCacheFixture.secondLevelCache)
+ *
+ * - findTeamById : 트랜잭션마다 em.find(Team)
+ * - hydrateTeams : 회원 50명을 읽고 member.getTeam().getTeamname() 으로 팀 프록시 초기화
+ * - findByTeamname : 팀명 조회 (쿼리 캐시)
+ *
+ * 끝나면 호출당 DB statement 수를 출력한다. (hibernate 통계)
+ */
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+    private static final int MEMBERS_PER_CALL = 50;
+
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private TeamRepository teamRepository;
+    private SecondLevelCacheStatistics statistics;
+    private List<Long> teamIds;
+    private long minMemberId;
+    private long memberCount;
+    private int teams;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp(SecondLevelCacheFixture fixture) {
+        em = fixture.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(fixture.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        teamRepository = fixture.getBean(TeamRepository.class);
+        statistics = fixture.getBean(SecondLevelCacheStatistics.class);
+
+        teamIds = transactionTemplate.execute(status ->
+                em.createQuery("select t.id from Team t order by t.id", Long.class).getResultList());
+        minMemberId = transactionTemplate.execute(status ->
+                em.createQuery("select min(m.id) from Member m", Long.class).getSingleResult());
+        memberCount = fixture.members;
+        teams = fixture.teams;
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        calls.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatistics() {
+        long count = Math.max(1, calls.get());
+        System.out.printf("%nstatements/call = %.2f, entity loads/call = %.2f, regions = %s%n",
+                (double) statistics.getPrepareStatementCount() / count,
+                (double) statistics.getEntityLoadCount() / count,
+                statistics.regions());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Team findTeamById() {
+        calls.incrementAndGet();
+        Long teamId = teamIds.get(ThreadLocalRandom.current().nextInt(teamIds.size()));
+        return transactionTemplate.execute(status -> em.find(Team.class, teamId));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int hydrateTeams() {
+        calls.incrementAndGet();
+        long from = minMemberId + ThreadLocalRandom.current().nextLong(memberCount - MEMBERS_PER_CALL);
+        return transactionTemplate.execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m where m.id >= :from order by m.id", Member.class)
+                    .setParameter("from", from)
+                    .setMaxResults(MEMBERS_PER_CALL)
+                    .getResultList();
+            int length = 0;
+            for (Member member : members) {
+                length += member.getTeam().getTeamname().length();
+            }
+            return length;
+        });
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Team> findByTeamname() {
+        calls.incrementAndGet();
+        return teamRepository.findByTeamname(H2Fixture.teamname(ThreadLocalRandom.current().nextInt(teams)));
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * H2Fixture + hibernate 2차 캐시/쿼리 캐시 on/off
+ */
+@State(Scope.Benchmark)
+public class SecondLevelCacheFixture extends H2Fixture {
+
+    @Param({"false", "true"})
+    public boolean secondLevelCache;
+
+    @Override
+    protected List<String> contextArgs() {
+        List<String> args = super.contextArgs();
+        args.add("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache);
+        args.add("--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+        args.add("--spring.jpa.properties.hibernate.generate_statistics=true");
+        return args;
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.MemberSearchCoalescer;
+import study.querydsl.repository.cache.CacheStats;
+import study.querydsl.repository.cache.HibernateCacheStats;
+import study.querydsl.repository.cache.MemberCountCache;
+import study.querydsl.repository.cache.MemberSearchResultCache;
+import study.querydsl.repository.cache.SecondLevelCacheStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberSearchResultCache memberSearchResultCache;
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+
+    /**
+     * 검색 캐시 적중률 등 통계
+     */
+    @GetMapping("/v1/cache/stats")
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("memberCount", memberCountCache.stats());
+        stats.put("memberSearchResult", memberSearchResultCache.stats());
+        return stats;
+    }
+
+    /**
+     * hibernate 2차 캐시(team)/쿼리 캐시(team-query) 통계
+     */
+    @GetMapping("/v1/cache/hibernate")
+    public Map<String, HibernateCacheStats> hibernateStats() {
+        return secondLevelCacheStatistics.regions();
+    }
+
+    /**
+     * 동시 검색 합치기 - 실제 조회 수와 다른 요청의 결과를 기다려서 받은(coalesced) 수
+     */
+    @GetMapping("/v1/cache/coalescing")
+    public MemberSearchCoalescer.Stats coalescingStats() {
+        return memberSearchCoalescer.stats();
+    }
+}
@@ -1,22 +1,147 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.json.MemberTeamJsonWriter;
+import study.querydsl.limit.SearchLimiter;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_SLICE_SIZE = 1000;
+
+    private static final String MODE_PAGE = "page";
+    private static final String MODE_SLICE = "slice";
+
     private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberTeamJsonWriter memberTeamJsonWriter;
+    private final SearchLimiter searchLimiter;
+
+    @Value("${member.search.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${member.search.json.direct:true}")
+    private boolean directJson;
+
+    /**
+     * direct 이면 MemberTeamDto / Jackson 없이 조회 결과를 응답에 바로 쓴다. (MemberTeamJsonWriter)
+     * 응답 JSON 은 같다.
+     * 응답은 여기서 바로 쓰므로, 검색 제한(SearchLimiter)에는 조회가 끝난 시각을 따로 알린다.
+     */
+    @GetMapping(value = "/v1/memberSearch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void search(MemberSearchCondition memberSearchCondition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (!directJson) {
+            List<MemberTeamDto> content = memberJpaRepository.search(memberSearchCondition);
+            searchLimiter.markQueryDone();
+            objectMapper.writeValue(response.getOutputStream(), content);
+            return;
+        }
+
+        try (MemberTeamJsonWriter.Rows rows = memberTeamJsonWriter.open(response.getOutputStream())) {
+            memberJpaRepository.searchRows(memberSearchCondition, searchLimiter::markQueryDone, rows);
+            rows.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * offset 페이징 조회
+     * mode=page : 전체 건수(totalElements/totalPages)까지 - 카운트 쿼리가 나간다.
+     * mode=slice : 다음 페이지 여부(last)만 - 카운트 쿼리 없이 size + 1 건만 조회한다.
+     */
+    @GetMapping("/v1/memberSearch/page")
+    public Slice<MemberTeamDto> searchPage(MemberSearchCondition memberSearchCondition, Pageable pageable,
+                                           @RequestParam(defaultValue = MODE_PAGE) String mode) {
+        if (MODE_PAGE.equalsIgnoreCase(mode)) {
+            return memberRepository.searchPageComplex(memberSearchCondition, pageable);
+        }
+        if (MODE_SLICE.equalsIgnoreCase(mode)) {
+            return memberRepository.searchSliceNoCount(memberSearchCondition, pageable);
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "mode must be " + MODE_PAGE + " or " + MODE_SLICE);
+    }
+
+    /**
+     * 커서 기반 페이징 조회
+     * 첫 페이지는 cursor 없이, 이후에는 응답의 nextCursor 를 넘긴다.
+     */
+    @GetMapping("/v1/memberSearch/slice")
+    public MemberCursorSlice searchSlice(MemberSearchCondition memberSearchCondition,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        try {
+            return memberRepository.searchSlice(memberSearchCondition, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 스트리밍 조회 (NDJSON)
+     * 한 줄에 회원 한 명씩 바로 응답에 쓰므로 결과 전체를 메모리에 올리지 않는다.
+     */
+    @GetMapping(value = "/v1/memberSearch/stream", produces = NDJSON)
+    public void searchStream(MemberSearchCondition memberSearchCondition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // 행마다 flush 하지 않고 서블릿 버퍼가 찰 때 내보낸다.
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(new SerializedString("\n"));
 
-    @GetMapping("/v1/memberSearch")
-    public List<MemberTeamDto> search(MemberSearchCondition memberSearchCondition) {
-        return memberJpaRepository.search(memberSearchCondition);
+        AtomicLong rows = new AtomicLong();
+        try {
+            memberJpaRepository.searchStream(memberSearchCondition, streamFetchSize, dto -> {
+                try {
+                    writer.writeValue(generator, dto);
+                    rows.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (rows.get() > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
     }
 }
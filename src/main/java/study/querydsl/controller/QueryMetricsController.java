@@ -0,0 +1,47 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.limit.AdaptiveConcurrencyLimiter;
+import study.querydsl.limit.SearchLimiter;
+import study.querydsl.metrics.QueryMetricsRegistry;
+import study.querydsl.metrics.QueryMetricsSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class QueryMetricsController {
+
+    private final QueryMetricsRegistry queryMetricsRegistry;
+    private final SearchLimiter searchLimiter;
+
+    /**
+     * SQL 모양별 / 리포지토리 메소드별 실행 횟수, 지연시간(p50/p95/p99), 조회 행 수
+     * (org.hibernate.SQL/type 로그 없이 쿼리 비용을 보기 위함)
+     */
+    @GetMapping("/v1/metrics/queries")
+    public Map<String, List<QueryMetricsSnapshot>> queries() {
+        Map<String, List<QueryMetricsSnapshot>> metrics = new LinkedHashMap<>();
+        metrics.put("repositories", queryMetricsRegistry.repositories());
+        metrics.put("statements", queryMetricsRegistry.statements());
+        return metrics;
+    }
+
+    @DeleteMapping("/v1/metrics/queries")
+    public void reset() {
+        queryMetricsRegistry.reset();
+    }
+
+    /**
+     * 검색 동시 실행 제한 - 종류별 현재 제한, 실행/대기 중인 요청 수, 거절 수
+     */
+    @GetMapping("/v1/metrics/search-limit")
+    public Map<String, AdaptiveConcurrencyLimiter.Stats> searchLimit() {
+        return searchLimiter.stats();
+    }
+}
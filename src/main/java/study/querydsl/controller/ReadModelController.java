@@ -0,0 +1,34 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.repository.readmodel.ConsistencyReport;
+import study.querydsl.repository.readmodel.MemberTeamReadModelJob;
+
+import java.util.Collections;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class ReadModelController {
+
+    private final MemberTeamReadModelJob memberTeamReadModelJob;
+
+    /**
+     * member_team 읽기 모델과 member/team 비교
+     */
+    @GetMapping("/v1/read-model/member-team/check")
+    public ConsistencyReport check() {
+        return memberTeamReadModelJob.check();
+    }
+
+    /**
+     * 다른 행만 다시 채운다.
+     */
+    @PostMapping("/v1/read-model/member-team/backfill")
+    public Map<String, Long> backfill() {
+        return Collections.singletonMap("changed", memberTeamReadModelJob.backfill());
+    }
+}
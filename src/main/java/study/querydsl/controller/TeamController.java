@@ -0,0 +1,46 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.TeamSlice;
+import study.querydsl.repository.TeamQueryRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private static final int MAX_SIZE = 100;
+    private static final int MAX_MEMBERS_PER_TEAM = 100;
+
+    private final TeamQueryRepository teamQueryRepository;
+
+    /**
+     * 팀 목록 + 팀마다 앞에서 membersPerTeam 명
+     * 첫 페이지는 cursor 없이(또는 offset 으로), 이후에는 응답의 nextCursor 를 넘긴다.
+     */
+    @GetMapping("/v1/teams")
+    public TeamSlice teams(@RequestParam(required = false) String cursor,
+                           @RequestParam(defaultValue = "0") long offset,
+                           @RequestParam(defaultValue = "20") int size,
+                           @RequestParam(defaultValue = "20") int membersPerTeam) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_SIZE);
+        }
+        if (membersPerTeam < 0 || membersPerTeam > MAX_MEMBERS_PER_TEAM) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "membersPerTeam must be between 0 and " + MAX_MEMBERS_PER_TEAM);
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not be negative");
+        }
+        try {
+            return teamQueryRepository.findTeams(cursor, offset, size, membersPerTeam);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
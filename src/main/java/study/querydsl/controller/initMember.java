@@ -3,13 +3,10 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkLoader;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.Arrays;
 
 @Profile("local")
 @Component
@@ -24,23 +21,14 @@ public class initMember {
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
 
-        @PersistenceContext
-        private EntityManager em;
+        private final MemberBulkLoader memberBulkLoader;
 
-        @Transactional
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i=0;i <100; i++) {
-                Team selTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selTeam));
-
-            }
+            memberBulkLoader.load(Arrays.asList("teamA", "teamB"), 100,
+                    i -> new MemberBulkLoader.Row("member" + i, (int) i, i % 2 == 0 ? "teamA" : "teamB"));
         }
     }
 }
@@ -0,0 +1,73 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 datasource 분리 - datasource-routing.enabled=true 일 때만 (기본은 spring.datasource 하나)
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource-routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaSet replicaSet(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .driverClassName(replica.getDriverClassName() != null
+                            ? replica.getDriverClassName() : dataSourceProperties.getDriverClassName())
+                    .build();
+            dataSource.setPoolName("replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+        return new ReplicaSet(primary, replicas, properties.getMaxLag(), properties.getLagCheckInterval());
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(DataSourceRoutingProperties properties) {
+        return new ReadYourWrites(properties.getStickyAfterWrite());
+    }
+
+    /**
+     * 라우팅 datasource 는 빈으로 따로 등록하지 않는다. (필요하면 dataSource.unwrap(ReplicaRoutingDataSource.class))
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaSet replicaSet, ReadYourWrites readYourWrites) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet, readYourWrites));
+    }
+
+    /**
+     * open-in-view 로 요청 내내 커넥션을 잡고 있으면 처음 고른 datasource 를 계속 쓰게 되므로,
+     * 트랜잭션이 끝날 때마다 커넥션을 돌려주고 다음 트랜잭션에서 다시 고르게 한다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaRoutingConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
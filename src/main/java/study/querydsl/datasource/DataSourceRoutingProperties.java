@@ -0,0 +1,44 @@
+package study.querydsl.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 datasource 분리 설정 (datasource-routing.*)
+ * primary 는 spring.datasource.* 를 그대로 쓰고, replica 만 여기에 적는다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("datasource-routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 이보다 뒤처진 replica 로는 보내지 않는다. (lag-check-interval 보다 커야 한다)
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * 쓰기 후 이 시간 동안은 같은 세션의 읽기도 primary 로 보낸다. (read-your-writes)
+     */
+    private Duration stickyAfterWrite = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * 쓰기 직후 같은 클라이언트의 읽기를 primary 로 고정한다. (replica 에 아직 반영 안 된 내 변경을 못 보는 문제)
+ * 웹 요청이면 요청 속성 + 응답 쿠키에, 아니면 현재 스레드에 마지막 쓰기 시각을 남긴다.
+ * HTTP 세션은 만들지 않는다. (세션 없이 호출하는 클라이언트마다 세션이 쌓이지 않도록)
+ * 쿠키 값을 조작해도 primary 로 읽게 될 뿐이다.
+ */
+public class ReadYourWrites {
+
+    static final String COOKIE_NAME = "last-write";
+    private static final String LAST_WRITE_ATTRIBUTE = ReadYourWrites.class.getName() + ".lastWrite";
+
+    private final long stickyMillis;
+    private final ThreadLocal<Long> threadLastWrite = new ThreadLocal<>();
+
+    public ReadYourWrites(Duration stickyAfterWrite) {
+        this.stickyMillis = stickyAfterWrite.toMillis();
+    }
+
+    public void markWrite() {
+        long now = System.currentTimeMillis();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(LAST_WRITE_ATTRIBUTE, now, RequestAttributes.SCOPE_REQUEST);
+            // 응답이 이미 커밋됐으면 쿠키는 무시된다. (같은 요청 안에서는 요청 속성으로 충분하다)
+            addCookie(request, Long.toString(now), (int) Math.max(1, (stickyMillis + 999) / 1000));
+        } else {
+            threadLastWrite.set(now);
+        }
+    }
+
+    public boolean isSticky() {
+        Long lastWrite = lastWrite();
+        return lastWrite != null && System.currentTimeMillis() - lastWrite < stickyMillis;
+    }
+
+    public void clear() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cookieLastWrite(request) != null) {
+                addCookie(request, "", 0);
+            }
+        }
+        threadLastWrite.remove();
+    }
+
+    private Long lastWrite() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object lastWrite = request.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (lastWrite instanceof Long) {
+                return (Long) lastWrite;
+            }
+            Long fromCookie = cookieLastWrite(request);
+            if (fromCookie != null) {
+                return fromCookie;
+            }
+        }
+        return threadLastWrite.get();
+    }
+
+    private static Long cookieLastWrite(RequestAttributes request) {
+        if (!(request instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest servletRequest = ((ServletRequestAttributes) request).getRequest();
+        Cookie[] cookies = servletRequest.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void addCookie(RequestAttributes request, String value, int maxAgeSeconds) {
+        if (!(request instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletResponse response = ((ServletRequestAttributes) request).getResponse();
+        if (response == null) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAgeSeconds);
+        response.addCookie(cookie);
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+ *
+ * - replica 는 라운드로빈으로 고르고, lag 이 max-lag 를 넘은 replica 는 건너뛴다. (모두 안 되면 primary)
+ * - 쓰기 트랜잭션이 커밋되면 sticky-after-write 동안 같은 세션의 읽기도 primary 로 보낸다.
+ * - 트랜잭션 시작 시점이 아니라 첫 SQL 시점에 커넥션을 받아야 readOnly 여부를 알 수 있으므로
+ *   LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final Object WRITE_TRACKED = new Object();
+
+    private final ReplicaSet replicaSet;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ConcurrentMap<String, AtomicLong> routeCounts = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet, ReadYourWrites readYourWrites) {
+        this.replicaSet = replicaSet;
+        this.readYourWrites = readYourWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, replicaSet.getPrimary());
+        for (int i = 0; i < replicaSet.getReplicas().size(); i++) {
+            targets.put(replicaKey(i), replicaSet.getReplicas().get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 지금까지 key(primary, replica-0 ...) 별로 커넥션을 내준 횟수
+     */
+    public Map<String, Long> getRouteCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        routeCounts.forEach((key, count) -> counts.put(key, count.get()));
+        return counts;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = route();
+        routeCounts.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        return key;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return PRIMARY;
+        }
+        if (readYourWrites.isSticky()) {
+            return PRIMARY;
+        }
+
+        int size = replicaSet.getReplicas().size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            int replica = (start + i) % size;
+            if (replicaSet.isEligible(replica)) {
+                return replicaKey(replica);
+            }
+        }
+        return PRIMARY;
+    }
+
+    /**
+     * 쓰기 트랜잭션이 커밋되면 read-your-writes 시각을 남긴다. (트랜잭션당 한 번만 등록)
+     */
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.markWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+
+    static String replicaKey(int replica) {
+        return "replica-" + replica;
+    }
+}
@@ -0,0 +1,160 @@
+package study.querydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * primary + replica 커넥션 풀과 replica 지연(lag) 감시
+ *
+ * lag 측정 : primary 의 replication_heartbeat 에 현재 시각을 주기적으로 쓰고,
+ * 각 replica 에서 그 값을 읽어 (지금 - 읽은 값) 을 lag 으로 본다.
+ * 읽을 수 없거나 max-lag 보다 뒤처진 replica 는 조회 대상에서 뺀다.
+ */
+@Slf4j
+public class ReplicaSet implements Closeable {
+
+    static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long maxLagMillis;
+
+    private final AtomicLongArray lagMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean heartbeatReady;
+
+    public ReplicaSet(DataSource primary, List<DataSource> replicas, Duration maxLag, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagMillis = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            lagMillis.set(i, UNKNOWN_LAG);
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!replicas.isEmpty()) {
+            scheduler.scheduleWithFixedDelay(this::checkNow, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public boolean isEligible(int replica) {
+        return lagMillis.get(replica) <= maxLagMillis;
+    }
+
+    /**
+     * @return 마지막 측정값(ms), 모르면 -1
+     */
+    public long getLagMillis(int replica) {
+        long lag = lagMillis.get(replica);
+        return lag == UNKNOWN_LAG ? -1 : lag;
+    }
+
+    /**
+     * heartbeat 를 쓰고 모든 replica 의 lag 을 다시 잰다.
+     */
+    public synchronized void checkNow() {
+        try {
+            writeHeartbeat();
+        } catch (SQLException e) {
+            log.warn("failed to write replication heartbeat: {}", e.getMessage());
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < replicas.size(); i++) {
+            long lag;
+            try {
+                Long beat = readHeartbeat(replicas.get(i));
+                lag = beat == null ? UNKNOWN_LAG : Math.max(0, now - beat);
+            } catch (SQLException e) {
+                log.debug("replica-{} heartbeat unavailable: {}", i, e.getMessage());
+                lag = UNKNOWN_LAG;
+            }
+            long previous = lagMillis.getAndSet(i, lag);
+            if ((previous <= maxLagMillis) != (lag <= maxLagMillis)) {
+                log.info("replica-{} {} (lag {}ms)", i, lag <= maxLagMillis ? "back in rotation" : "out of rotation",
+                        lag == UNKNOWN_LAG ? "unknown" : lag);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        closeQuietly(primary);
+        replicas.forEach(ReplicaSet::closeQuietly);
+    }
+
+    private void writeHeartbeat() throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!heartbeatReady) {
+                createHeartbeat(connection);
+                heartbeatReady = true;
+            }
+            try (PreparedStatement update = connection.prepareStatement("update replication_heartbeat set beat = ? where id = 1")) {
+                update.setLong(1, System.currentTimeMillis());
+                update.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * 테이블과 beat 행은 처음 한 번만 만든다. (primary 에 닿지 못하면 다음 주기에 다시 시도)
+     */
+    private static void createHeartbeat(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists replication_heartbeat (id int primary key, beat bigint not null)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into replication_heartbeat (id, beat)"
+                + " select 1, ? where not exists (select 1 from replication_heartbeat where id = 1)")) {
+            insert.setLong(1, System.currentTimeMillis());
+            insert.executeUpdate();
+        }
+    }
+
+    private static Long readHeartbeat(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select beat from replication_heartbeat where id = 1")) {
+            return rs.next() ? rs.getLong(1) : null;
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof Closeable) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (IOException e) {
+                log.warn("failed to close datasource", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 커서 기반(keyset) 페이징 결과
+ * nextCursor 는 다음 페이지 조회 시 그대로 넘겨주는 불투명 토큰
+ */
+@Getter
+public class MemberCursorSlice {
+    private final List<MemberTeamDto> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public MemberCursorSlice(List<MemberTeamDto> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -2,6 +2,8 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     //회원명, 팀명, 나이
@@ -10,4 +12,17 @@ public class MemberSearchCondition {
     private String teamname;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 캐시 키 용도의 정규화된 복사본
+     * 빈 문자열은 조건이 없는 것과 같으므로 null 로 맞춘다.
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamname(hasText(teamname) ? teamname : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 팀 목록(TeamMembersDto)에 들어가는 회원
+ */
+@Getter
+@ToString
+public class TeamMemberDto {
+    private final Long memberId;
+    private final String username;
+    private final int age;
+
+    public TeamMemberDto(Long memberId, String username, int age) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+    }
+}
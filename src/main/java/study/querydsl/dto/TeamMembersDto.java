@@ -0,0 +1,33 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 팀과 그 팀의 회원 일부 (앞에서부터 membersPerTeam 명)
+ * memberCount 는 전체 회원 수 - members 보다 크면 잘린 것이다.
+ */
+@Getter
+@ToString
+public class TeamMembersDto {
+    private final Long teamId;
+    private final String teamname;
+    private long memberCount;
+    private final List<TeamMemberDto> members = new ArrayList<>();
+
+    public TeamMembersDto(Long teamId, String teamname) {
+        this.teamId = teamId;
+        this.teamname = teamname;
+    }
+
+    public void setMemberCount(long memberCount) {
+        this.memberCount = memberCount;
+    }
+
+    public boolean isTruncated() {
+        return memberCount > members.size();
+    }
+}
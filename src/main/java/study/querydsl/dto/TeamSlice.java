@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 팀 목록 페이징 결과 (카운트 없이 size + 1 건으로 다음 페이지 여부를 판단)
+ * nextCursor 는 keyset 으로 다음 페이지를 조회할 때 그대로 넘겨주는 불투명 토큰
+ */
+@Getter
+public class TeamSlice {
+    private final List<TeamMembersDto> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public TeamSlice(List<TeamMembersDto> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import java.time.LocalDateTime;
+
+/**
+ * 나눠서 실행하는 벌크 수정의 진행 위치 (MemberChunkedUpdater)
+ * chunk 와 같은 트랜잭션에서 갱신하므로, 실패 후 같은 jobName 으로 다시 실행하면 커밋된 chunk 다음부터 이어간다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class BulkUpdateCheckpoint {
+
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    /**
+     * 다음에 처리할 member_id (여기부터 이어간다)
+     */
+    private long nextId;
+
+    /**
+     * 시작할 때의 max(member_id) - 이어서 실행해도 같은 범위까지만 처리한다.
+     */
+    private long maxId;
+
+    /**
+     * 시작할 때의 where 조건 (MemberChunkedUpdater.fingerprint) - 다른 조건으로 이어서 실행하지 못하게 한다.
+     */
+    @Lob
+    private String predicate;
+
+    private long updatedRows;
+
+    private long chunks;
+
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+
+    public BulkUpdateCheckpoint(String jobName, long nextId, long maxId, String predicate) {
+        this.jobName = jobName;
+        this.nextId = nextId;
+        this.maxId = maxId;
+        this.predicate = predicate;
+        this.completed = nextId > maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void chunkCompleted(long nextId, long updatedRows) {
+        this.nextId = nextId;
+        this.updatedRows += updatedRows;
+        this.chunks++;
+        this.completed = nextId > maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
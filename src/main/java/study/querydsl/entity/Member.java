@@ -9,10 +9,18 @@ import javax.persistence.*;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = {
+        // 검색조건(MemberSearchCondition)용 인덱스
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        // 팀 조인 + 나이 범위. team_id 단독 조회(조인)도 이 인덱스의 앞쪽 컬럼으로 처리된다.
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.*;
+
+/**
+ * 검색용 읽기 모델 - member + team 을 MemberTeamDto 모양으로 펼친 테이블 (member_team)
+ * Member/Team 변경 시 MemberTeamReadModel 이 같은 트랜잭션 안에서 갱신한다. (JPA 로는 읽기만)
+ *
+ * @Synchronize : 이 엔티티를 조회하기 전에 member/team 의 변경이 flush 되도록 한다.
+ */
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "member_team", indexes = {
+        @Index(name = "idx_member_team_view_username", columnList = "username"),
+        @Index(name = "idx_member_team_view_age", columnList = "age"),
+        @Index(name = "idx_member_team_view_teamname_age", columnList = "teamname, age")
+})
+public class MemberTeamView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private String teamname;
+}
@@ -3,18 +3,29 @@ package study.querydsl.entity;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 거의 읽기만 하므로 2차 캐시에 둔다. (region 설정은 ehcache.xml)
+ * members 컬렉션은 캐시하지 않는다. 컬렉션 캐시는 회원 id 만 들고 있어서, 자주 바뀌는 Member 를 캐시하지 않으면
+ * 캐시에서 꺼낸 뒤 회원을 한 명씩 다시 읽게 된다.
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_team_teamname", columnList = "teamname"))
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String teamname;
@@ -0,0 +1,285 @@
+package study.querydsl.json;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberTeamRowHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 검색 결과를 MemberTeamDto / Jackson 을 거치지 않고 JSON 배열로 바로 쓴다.
+ * 필드 이름은 미리 UTF-8 바이트로 만들어 두고, 값은 재사용하는 버퍼에 직접 인코딩해서 버퍼가 찰 때만 내보낸다.
+ * 출력은 Jackson 이 MemberTeamDto 목록을 직렬화한 것과 같다. (필드 순서, 이스케이프, null)
+ *
+ * ex)
+ * try (MemberTeamJsonWriter.Rows rows = writer.open(out)) {
+ *     memberJpaRepository.searchRows(condition, rows);
+ *     rows.finish();
+ * }
+ */
+@Component
+public class MemberTeamJsonWriter {
+
+    private static final byte[] MEMBER_ID = ascii("{\"memberId\":");
+    private static final byte[] USERNAME = ascii(",\"username\":");
+    private static final byte[] AGE = ascii(",\"age\":");
+    private static final byte[] TEAM_ID = ascii(",\"teamId\":");
+    private static final byte[] TEAMNAME = ascii(",\"teamname\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] LONG_MIN = ascii(Long.toString(Long.MIN_VALUE));
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    /**
+     * 문자 하나가 차지하는 최대 바이트 (\\u00XX)
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final int MAX_LONG_BYTES = 20;
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> pool;
+
+    public MemberTeamJsonWriter(@Value("${member.search.json.buffer-size:8192}") int bufferSize,
+                                @Value("${member.search.json.buffer-pool-size:64}") int poolSize) {
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("buffer-size must be at least 64: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * '[' 를 쓰고 행을 받을 준비를 한다. 다 쓰면 finish(), 끝나면 (실패해도) close() 로 버퍼를 돌려준다.
+     */
+    public Rows open(OutputStream out) {
+        byte[] buffer = pool.poll();
+        Rows rows = new Rows(out, buffer != null ? buffer : new byte[bufferSize]);
+        rows.writeByte('[');
+        return rows;
+    }
+
+    public void writeAll(OutputStream out, List<MemberTeamDto> content) throws IOException {
+        try (Rows rows = open(out)) {
+            for (MemberTeamDto dto : content) {
+                rows.row(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamname());
+            }
+            rows.finish();
+        }
+    }
+
+    private void release(byte[] buffer) {
+        // 풀이 가득 차 있으면 버린다.
+        pool.offer(buffer);
+    }
+
+    /**
+     * 응답 하나에 대한 쓰기 상태 - 스레드 간에 공유하지 않는다.
+     * row 는 MemberTeamRowHandler 라서 IOException 을 UncheckedIOException 으로 감싼다.
+     */
+    public class Rows implements MemberTeamRowHandler, Closeable {
+
+        private final OutputStream out;
+        private byte[] buffer;
+        private int position;
+        private long count;
+
+        private Rows(OutputStream out, byte[] buffer) {
+            this.out = out;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void row(Long memberId, String username, int age, Long teamId, String teamname) {
+            try {
+                if (count++ > 0) {
+                    writeByte(',');
+                }
+                writeBytes(MEMBER_ID);
+                writeLong(memberId);
+                writeBytes(USERNAME);
+                writeString(username);
+                writeBytes(AGE);
+                writeLong(age);
+                writeBytes(TEAM_ID);
+                writeLong(teamId);
+                writeBytes(TEAMNAME);
+                writeString(teamname);
+                writeByte('}');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * ']' 를 쓰고 버퍼에 남은 것을 내보낸다.
+         */
+        public void finish() throws IOException {
+            writeByte(']');
+            flushBuffer();
+            out.flush();
+        }
+
+        /**
+         * 버퍼를 풀에 돌려준다. finish() 없이 닫으면 남은 내용은 버린다. (실패한 응답을 반쯤 쓰지 않도록)
+         */
+        @Override
+        public void close() {
+            if (buffer != null) {
+                release(buffer);
+                buffer = null;
+            }
+        }
+
+        private void writeByte(int b) {
+            if (position == buffer.length) {
+                try {
+                    flushBuffer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeLong(Long value) throws IOException {
+            if (value == null) {
+                writeBytes(NULL);
+            } else {
+                writeLong(value.longValue());
+            }
+        }
+
+        /**
+         * Long.toString 없이 버퍼에 직접 자릿수를 쓴다.
+         */
+        private void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                writeBytes(LONG_MIN);
+                return;
+            }
+            ensure(MAX_LONG_BYTES);
+            if (value < 0) {
+                buffer[position++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int end = position + digits;
+            for (int i = end - 1; i >= position; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            position = end;
+        }
+
+        /**
+         * JSON 문자열 + UTF-8 인코딩 (Jackson 과 같이 ", \\, 제어문자, surrogate 만 이스케이프)
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeBytes(NULL);
+                return;
+            }
+            ensure(1);
+            buffer[position++] = '"';
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                ensure(MAX_CHAR_BYTES);
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        writeShortEscape(c);
+                    } else if (c < 0x20) {
+                        writeControl(c);
+                    } else {
+                        buffer[position++] = (byte) c;
+                    }
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Jackson 처럼 4바이트 UTF-8 로 합치지 않고 surrogate 마다 \\uXXXX 로 쓴다. (짝이 없어도 같다)
+                    writeUnicodeEscape(c);
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            ensure(1);
+            buffer[position++] = '"';
+        }
+
+        private void writeControl(char c) {
+            switch (c) {
+                case '\b':
+                    writeShortEscape('b');
+                    break;
+                case '\t':
+                    writeShortEscape('t');
+                    break;
+                case '\n':
+                    writeShortEscape('n');
+                    break;
+                case '\f':
+                    writeShortEscape('f');
+                    break;
+                case '\r':
+                    writeShortEscape('r');
+                    break;
+                default:
+                    writeUnicodeEscape(c);
+            }
+        }
+
+        private void writeShortEscape(char escape) {
+            buffer[position++] = '\\';
+            buffer[position++] = (byte) escape;
+        }
+
+        private void writeUnicodeEscape(char c) {
+            buffer[position++] = '\\';
+            buffer[position++] = 'u';
+            buffer[position++] = HEX[c >> 12];
+            buffer[position++] = HEX[(c >> 8) & 0xF];
+            buffer[position++] = HEX[(c >> 4) & 0xF];
+            buffer[position++] = HEX[c & 0xF];
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                flushBuffer();
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
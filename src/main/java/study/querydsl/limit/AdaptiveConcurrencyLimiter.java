@@ -0,0 +1,200 @@
+package study.querydsl.limit;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD 방식의 동시 실행 제한
+ * - 응답시간이 latencyTarget 이하이고 제한의 절반 이상을 쓰고 있었으면 제한 +1 (additive increase)
+ * - latencyTarget 을 넘으면 제한 x backoffRatio (multiplicative decrease)
+ * 제한만큼 실행 중이면 maxQueue 개까지 queueTimeout 동안 기다리고, 그래도 자리가 없으면 거절한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+
+    private long accepted;
+    private long queued;
+    private long rejected;
+    private long slowResponses;
+
+    public AdaptiveConcurrencyLimiter(String name, SearchLimitProperties.Limit properties) {
+        this(name, properties, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, SearchLimitProperties.Limit properties, LongSupplier nanoClock) {
+        if (properties.getMinLimit() < 1 || properties.getMaxLimit() < properties.getMinLimit()) {
+            throw new IllegalArgumentException(name + ": limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        if (properties.getBackoffRatio() <= 0 || properties.getBackoffRatio() >= 1) {
+            throw new IllegalArgumentException(name + ": backoff-ratio must be between 0 and 1");
+        }
+        this.name = name;
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.latencyTargetNanos = properties.getLatencyTarget().toNanos();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.maxQueue = properties.getMaxQueue();
+        this.queueTimeoutNanos = properties.getQueueTimeout().toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+    }
+
+    /**
+     * @return 실행해도 되면 Permit (끝나면 release), 거절이면 null
+     */
+    public Permit tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                return admit();
+            }
+            if (waiting >= maxQueue) {
+                rejected++;
+                return null;
+            }
+
+            waiting++;
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        return null;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                return admit();
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 실행(조회)이 끝난 시각을 남긴다. release 는 이 시각까지를 걸린 시간으로 본다.
+     * (응답을 쓰는 시간에는 클라이언트가 읽는 속도가 섞이므로 쓰기 전에 부른다)
+     */
+    public void markDone(Permit permit) {
+        if (!permit.done) {
+            permit.doneNanos = nanoClock.getAsLong();
+            permit.done = true;
+        }
+    }
+
+    /**
+     * 실행이 끝났을 때 - 걸린 시간(markDone 했으면 그 시각까지)으로 제한을 조정한다.
+     */
+    public void release(Permit permit) {
+        long endNanos = permit.done ? permit.doneNanos : nanoClock.getAsLong();
+        release(endNanos - permit.startNanos);
+    }
+
+    /**
+     * 걸린 시간을 제한 조정에 쓰지 않고 자리만 돌려준다.
+     * (스트리밍처럼 응답시간이 클라이언트가 읽는 속도에 달린 요청)
+     */
+    public void releaseUnmeasured(Permit permit) {
+        release(-1);
+    }
+
+    /**
+     * @param latency 0 보다 작으면 제한을 조정하지 않는다.
+     */
+    private void release(long latency) {
+        lock.lock();
+        try {
+            int usedInFlight = inFlight;
+            inFlight--;
+            if (latency < 0) {
+                released.signalAll();
+                return;
+            }
+            if (latency > latencyTargetNanos) {
+                slowResponses++;
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (usedInFlight * 2 >= currentLimit()) {
+                // 제한을 절반도 안 쓰고 있었다면 빨랐다고 해서 늘릴 근거가 없다.
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(name, currentLimit(), inFlight, waiting, accepted, queued, rejected, slowResponses);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit admit() {
+        inFlight++;
+        accepted++;
+        return new Permit(nanoClock.getAsLong());
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    public static final class Permit {
+        private final long startNanos;
+        private volatile long doneNanos;
+        private volatile boolean done;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Stats {
+        private final String name;
+        private final int limit;
+        private final int inFlight;
+        private final int waiting;
+        private final long accepted;
+        private final long queued;
+        private final long rejected;
+        private final long slowResponses;
+
+        Stats(String name, int limit, int inFlight, int waiting, long accepted, long queued, long rejected, long slowResponses) {
+            this.name = name;
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.waiting = waiting;
+            this.accepted = accepted;
+            this.queued = queued;
+            this.rejected = rejected;
+            this.slowResponses = slowResponses;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.limit;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건의 비용 구분
+ */
+public enum SearchClass {
+    /**
+     * username 일치 - idx_member_username 으로 몇 건만 읽는다.
+     */
+    CHEAP,
+    /**
+     * 그 외 - 조건이 없거나 팀/나이 범위만 있으면 많은 행을 읽는다.
+     */
+    EXPENSIVE;
+
+    public static SearchClass of(MemberSearchCondition condition) {
+        return hasText(condition.getUsername()) ? CHEAP : EXPENSIVE;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.limit;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * /v1/memberSearch 와 하위 경로(page, slice, stream)에 SearchLimitInterceptor 를 건다.
+ */
+@Configuration
+@EnableConfigurationProperties(SearchLimitProperties.class)
+public class SearchLimitConfig implements WebMvcConfigurer {
+
+    private final SearchLimiter searchLimiter;
+
+    public SearchLimitConfig(SearchLimiter searchLimiter) {
+        this.searchLimiter = searchLimiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (searchLimiter.isEnabled()) {
+            registry.addInterceptor(new SearchLimitInterceptor(searchLimiter))
+                    .addPathPatterns("/v1/memberSearch", "/v1/memberSearch/**");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.limit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 검색 요청마다 SearchLimiter 의 자리를 잡고, 없으면 503 + Retry-After 로 바로 돌려보낸다.
+ * 검색 조건은 바인딩 전이라 요청 파라미터에서 username 만 보고 구분한다.
+ * 스트리밍(/v1/memberSearch/stream)은 응답시간이 클라이언트가 읽는 속도에 달려 있으므로 자리만 잡고 제한 조정에는 쓰지 않는다.
+ * 나머지는 응답을 쓰기 전에 남긴 조회 종료 시각(SearchLimiter.markQueryDone)까지를 걸린 시간으로 본다.
+ */
+class SearchLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = SearchLimitInterceptor.class.getName() + ".permit";
+    private static final String LIMITER_ATTRIBUTE = SearchLimitInterceptor.class.getName() + ".limiter";
+    private static final String STREAM_PATH = "/v1/memberSearch/stream";
+
+    private final SearchLimiter searchLimiter;
+
+    SearchLimitInterceptor(SearchLimiter searchLimiter) {
+        this.searchLimiter = searchLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(request.getParameter("username"));
+        AdaptiveConcurrencyLimiter limiter = searchLimiter.limiter(condition);
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(searchLimiter.getRetryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    static void markQueryDone(RequestAttributes request) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        Object limiter = request.getAttribute(LIMITER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (permit instanceof AdaptiveConcurrencyLimiter.Permit && limiter instanceof AdaptiveConcurrencyLimiter) {
+            ((AdaptiveConcurrencyLimiter) limiter).markDone((AdaptiveConcurrencyLimiter.Permit) permit);
+        }
+    }
+
+    private static void release(HttpServletRequest request) {
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        Object limiter = request.getAttribute(LIMITER_ATTRIBUTE);
+        if (permit instanceof AdaptiveConcurrencyLimiter.Permit && limiter instanceof AdaptiveConcurrencyLimiter) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            if (isStreaming(request)) {
+                ((AdaptiveConcurrencyLimiter) limiter).releaseUnmeasured((AdaptiveConcurrencyLimiter.Permit) permit);
+            } else {
+                ((AdaptiveConcurrencyLimiter) limiter).release((AdaptiveConcurrencyLimiter.Permit) permit);
+            }
+        }
+    }
+
+    private static boolean isStreaming(HttpServletRequest request) {
+        return request.getRequestURI().endsWith(STREAM_PATH);
+    }
+}
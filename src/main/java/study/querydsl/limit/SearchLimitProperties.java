@@ -0,0 +1,75 @@
+package study.querydsl.limit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 검색 API 동시 실행 제한 설정 (search-limit.*)
+ * 조건 종류(SearchClass)마다 따로 제한한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("search-limit")
+public class SearchLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 거절할 때 Retry-After 로 알려줄 시간 (초 단위로 올림)
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * 조건 없는 검색 등 - 큰 결과를 읽는다.
+     */
+    private Limit expensive = new Limit(4, 1, 16, Duration.ofMillis(200), 8, Duration.ofMillis(100));
+
+    /**
+     * username 일치 검색 - 인덱스로 몇 건만 읽는다.
+     */
+    private Limit cheap = new Limit(32, 4, 128, Duration.ofMillis(20), 64, Duration.ofMillis(50));
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        /**
+         * 응답시간이 이보다 길면 제한을 줄인다.
+         */
+        private Duration latencyTarget;
+
+        /**
+         * 자리가 날 때까지 기다릴 수 있는 요청 수 - 넘으면 바로 거절한다.
+         */
+        private int maxQueue;
+
+        /**
+         * 대기열에서 기다리는 최대 시간 - 넘으면 거절한다.
+         */
+        private Duration queueTimeout;
+
+        /**
+         * 응답시간이 latencyTarget 을 넘을 때 제한에 곱하는 값
+         */
+        private double backoffRatio = 0.9;
+
+        public Limit() {
+        }
+
+        Limit(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget, int maxQueue, Duration queueTimeout) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyTarget = latencyTarget;
+            this.maxQueue = maxQueue;
+            this.queueTimeout = queueTimeout;
+        }
+    }
+}
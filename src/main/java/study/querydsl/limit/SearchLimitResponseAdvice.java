@@ -0,0 +1,36 @@
+package study.querydsl.limit;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 반환값을 응답으로 쓰는 검색 API (page, slice) 는 쓰기 직전에 조회가 끝났다고 남긴다. (SearchLimiter.markQueryDone)
+ * 메시지 컨버터가 쓰는 시간은 afterCompletion 전이라 그대로 두면 클라이언트가 느리게 읽을 때 느린 조회로 보인다.
+ */
+@ControllerAdvice
+class SearchLimitResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SearchLimiter searchLimiter;
+
+    SearchLimitResponseAdvice(SearchLimiter searchLimiter) {
+        this.searchLimiter = searchLimiter;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return searchLimiter.isEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        searchLimiter.markQueryDone();
+        return body;
+    }
+}
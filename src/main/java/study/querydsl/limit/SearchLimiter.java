@@ -0,0 +1,57 @@
+package study.querydsl.limit;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 검색 API 앞단의 동시 실행 제한 - 비싼 검색이 몰려도 커넥션 풀을 다 차지해서 싼 검색까지 느려지지 않도록 종류별로 따로 제한한다.
+ */
+@Component
+public class SearchLimiter {
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final Map<SearchClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(SearchClass.class);
+
+    public SearchLimiter(SearchLimitProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+        limiters.put(SearchClass.CHEAP, new AdaptiveConcurrencyLimiter("cheap", properties.getCheap()));
+        limiters.put(SearchClass.EXPENSIVE, new AdaptiveConcurrencyLimiter("expensive", properties.getExpensive()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(MemberSearchCondition condition) {
+        return limiters.get(SearchClass.of(condition));
+    }
+
+    /**
+     * 현재 요청의 검색 조회가 끝났다고 남긴다. 응답을 쓰기 전에 부르면 제한 조정에 쓰는 시간에서 응답 쓰기가 빠진다.
+     * 검색 제한이 걸린 요청이 아니면 아무 것도 하지 않는다.
+     */
+    public void markQueryDone() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            SearchLimitInterceptor.markQueryDone(request);
+        }
+    }
+
+    public Map<String, AdaptiveConcurrencyLimiter.Stats> stats() {
+        Map<String, AdaptiveConcurrencyLimiter.Stats> stats = new LinkedHashMap<>();
+        limiters.forEach((searchClass, limiter) -> stats.put(searchClass.name().toLowerCase(), limiter.stats()));
+        return stats;
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 구간 지연시간 히스토그램 - 락 없이 구간별 카운터만 올린다.
+ * 백분위수는 해당 구간의 상한값으로 근사한다. (마지막 구간은 최대값)
+ */
+class LatencyHistogram {
+
+    /**
+     * 구간 상한 (마이크로초)
+     */
+    private static final long[] BOUNDS_MICROS = {
+            100, 250, 500,
+            1_000, 2_500, 5_000,
+            10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int i = 0;
+        while (i < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param quantile 0.5, 0.99 ...
+     */
+    long percentileNanos(double quantile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(TimeUnit.MICROSECONDS.toNanos(BOUNDS_MICROS[i]), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+}
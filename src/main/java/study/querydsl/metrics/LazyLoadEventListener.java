@@ -0,0 +1,65 @@
+package study.querydsl.metrics;
+
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 프록시(Member.team 등) / 지연 컬렉션(Team.members 등) 초기화를 NPlusOneDetector 에 알린다.
+ * 기본 리스너보다 먼저 실행되도록 prepend 하고, 이미 영속성 컨텍스트에 있어서 DB 를 안 가는 경우(배치 페치 등)는 세지 않는다.
+ */
+@Component
+public class LazyLoadEventListener implements LoadEventListener, InitializeCollectionEventListener, SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final NPlusOneDetector detector;
+
+    public LazyLoadEventListener(EntityManagerFactory entityManagerFactory, NPlusOneDetector detector) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.detector = detector;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!detector.isEnabled()) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.LOAD, this);
+        registry.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        // 프록시 초기화는 IMMEDIATE_LOAD 로 들어온다.
+        if (loadType != LoadEventListener.IMMEDIATE_LOAD) {
+            return;
+        }
+        EventSource session = event.getSession();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(event.getEntityClassName());
+        EntityKey key = session.generateEntityKey(event.getEntityId(), persister);
+        if (session.getPersistenceContextInternal().getEntity(key) == null) {
+            detector.onLazyLoad(persister.getEntityName());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        if (!event.getCollection().wasInitialized()) {
+            detector.onLazyLoad(event.getCollection().getRole());
+        }
+    }
+}
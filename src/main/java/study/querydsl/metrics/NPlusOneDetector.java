@@ -0,0 +1,179 @@
+package study.querydsl.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * N+1 / 지연 로딩 폭주 감지
+ *
+ * - 요청(QueryScopeInterceptor) 또는 트랜잭션 단위로 QueryScope 를 열고 SQL 과 지연 로딩 횟수를 센다.
+ *   (요청/트랜잭션 밖이면 세지 않는다. 테스트에서는 open 으로 직접 열 수 있다)
+ * - 같은 모양의 select 가 same-shape-threshold 를, 같은 대상의 지연 로딩이 lazy-load-threshold 를 넘으면
+ *   그 지점을 부른 코드 위치와 함께 경고한다.
+ * - 리포지토리 메소드 한 번에 method-budget 보다 많은 SQL 을 실행해도 경고한다.
+ * - strict 모드면 경고 대신 QueryBudgetExceededException 을 던진다. (테스트용)
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector {
+
+    private static final String BASE_PACKAGE = "study.querydsl.";
+    private static final String OWN_PACKAGE = NPlusOneDetector.class.getPackage().getName() + ".";
+
+    private final boolean enabled;
+    private final boolean strict;
+    private final int sameShapeThreshold;
+    private final int lazyLoadThreshold;
+    private final int methodBudget;
+
+    /**
+     * 현재 스레드에 열린 구간 (바깥쪽이 아래). 감지는 가장 바깥 구간 기준으로 한다.
+     */
+    private final ThreadLocal<Deque<QueryScope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public NPlusOneDetector(@Value("${query-guard.enabled:true}") boolean enabled,
+                            @Value("${query-guard.strict:false}") boolean strict,
+                            @Value("${query-guard.same-shape-threshold:10}") int sameShapeThreshold,
+                            @Value("${query-guard.lazy-load-threshold:10}") int lazyLoadThreshold,
+                            @Value("${query-guard.method-budget:20}") int methodBudget) {
+        this.enabled = enabled;
+        this.strict = strict;
+        this.sameShapeThreshold = sameShapeThreshold;
+        this.lazyLoadThreshold = lazyLoadThreshold;
+        this.methodBudget = methodBudget;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 구간을 직접 연다. try-with-resources 로 닫는다.
+     */
+    public QueryScope open(String name) {
+        QueryScope scope = new QueryScope(this, name);
+        scopes.get().push(scope);
+        return scope;
+    }
+
+    void close(QueryScope scope) {
+        Deque<QueryScope> stack = scopes.get();
+        stack.remove(scope);
+        if (stack.isEmpty()) {
+            scopes.remove();
+        }
+        if (!scope.getViolations().isEmpty()) {
+            log.info("query scope [{}] statements={}, lazyLoads={}, violations={}",
+                    scope.getName(), scope.getStatementCount(), scope.getLazyLoadCount(), scope.getViolations().size());
+        }
+    }
+
+    /**
+     * SQL 실행 직전 (shape 는 SqlNormalizer 로 정규화된 SQL)
+     */
+    void onStatement(String shape) {
+        Deque<QueryScope> stack = currentScopes();
+        if (stack == null) {
+            return;
+        }
+        int repeated = 0;
+        for (QueryScope scope : stack) {
+            repeated = scope.addStatement(shape);
+        }
+        if (repeated == sameShapeThreshold + 1) {
+            violation(stack.peekLast(), "same select executed more than " + sameShapeThreshold + " times (N+1?) at "
+                    + callSite() + " : " + shape);
+        }
+    }
+
+    /**
+     * 프록시/컬렉션 초기화 (role 은 엔티티 이름 또는 컬렉션 role)
+     */
+    void onLazyLoad(String role) {
+        Deque<QueryScope> stack = currentScopes();
+        if (stack == null) {
+            return;
+        }
+        int repeated = 0;
+        for (QueryScope scope : stack) {
+            repeated = scope.addLazyLoad(role);
+        }
+        if (repeated == lazyLoadThreshold + 1) {
+            violation(stack.peekLast(), "lazy loading of " + role + " more than " + lazyLoadThreshold
+                    + " times (fetch join / batch fetch?) at " + callSite());
+        }
+    }
+
+    /**
+     * 리포지토리 메소드 한 번이 실행한 SQL 수 확인
+     */
+    void checkMethodBudget(String method, long statements) {
+        if (!enabled || statements <= methodBudget) {
+            return;
+        }
+        String message = method + " executed " + statements + " statements (budget " + methodBudget + ") at " + callSite();
+        Deque<QueryScope> stack = scopes.get();
+        if (stack.isEmpty()) {
+            scopes.remove();
+            report(message);
+        } else {
+            violation(stack.peekLast(), message);
+        }
+    }
+
+    private void violation(QueryScope scope, String message) {
+        scope.addViolation(message);
+        report(message);
+    }
+
+    private void report(String message) {
+        if (strict) {
+            throw new QueryBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    /**
+     * 열린 구간이 없으면 트랜잭션 구간을 열어서 트랜잭션이 끝날 때 닫는다.
+     */
+    private Deque<QueryScope> currentScopes() {
+        if (!enabled) {
+            return null;
+        }
+        Deque<QueryScope> stack = scopes.get();
+        if (stack.isEmpty()) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                scopes.remove();
+                return null;
+            }
+            String name = TransactionSynchronizationManager.getCurrentTransactionName();
+            QueryScope scope = open("transaction " + (name != null ? name : ""));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    close(scope);
+                }
+            });
+        }
+        return stack;
+    }
+
+    /**
+     * 이 패키지와 프록시를 건너뛴 첫 번째 애플리케이션 코드 위치
+     */
+    private static String callSite() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith(BASE_PACKAGE) && !className.startsWith(OWN_PACKAGE) && !className.contains("$$")) {
+                return frame.toString();
+            }
+        }
+        return "(unknown)";
+    }
+}
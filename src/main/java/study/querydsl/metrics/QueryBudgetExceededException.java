@@ -0,0 +1,11 @@
+package study.querydsl.metrics;
+
+/**
+ * strict 모드에서 N+1 / 지연 로딩 폭주 / 메소드별 쿼리 수 초과를 발견하면 던진다.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
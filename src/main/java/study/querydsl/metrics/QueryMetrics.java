@@ -0,0 +1,41 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 한 SQL 모양(또는 리포지토리 메소드)의 누적 지표
+ */
+class QueryMetrics {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    QueryMetrics(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long statementCount, boolean error) {
+        count.increment();
+        statements.add(statementCount);
+        totalNanos.add(nanos);
+        histogram.record(nanos);
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    QueryMetricsSnapshot snapshot() {
+        return new QueryMetricsSnapshot(name, count.sum(), errors.sum(), rows.sum(), statements.sum(),
+                totalNanos.sum(), histogram.getMaxNanos(),
+                histogram.percentileNanos(0.5), histogram.percentileNanos(0.95), histogram.percentileNanos(0.99));
+    }
+}
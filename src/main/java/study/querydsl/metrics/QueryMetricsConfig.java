@@ -0,0 +1,99 @@
+package study.querydsl.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+
+/**
+ * 쿼리 지표 수집 설정
+ * - DataSource 를 QueryMetricsDataSource 로 감싼다.
+ * - @Repository 클래스와 spring data 리포지토리에 RepositoryMetricsInterceptor 를 건다.
+ * - 요청마다 NPlusOneDetector 구간을 연다.
+ */
+@Configuration
+public class QueryMetricsConfig implements WebMvcConfigurer {
+
+    private final NPlusOneDetector detector;
+
+    public QueryMetricsConfig(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryScopeInterceptor(detector));
+    }
+
+    @Bean
+    public static BeanPostProcessor queryMetricsDataSourcePostProcessor(ObjectProvider<QueryMetricsRegistry> registry,
+                                                                        ObjectProvider<NPlusOneDetector> detector) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource && !(bean instanceof QueryMetricsDataSource)) {
+                    return new QueryMetricsDataSource((DataSource) bean, registry.getObject(), detector.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 트랜잭션 advisor 와 같은 auto proxy creator 가 집어가도록 infrastructure 로 등록한다.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor repositoryMetricsAdvisor(ObjectProvider<QueryMetricsRegistry> registry,
+                                                   ObjectProvider<NPlusOneDetector> detector) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Repository.class.isAssignableFrom(targetClass)
+                        || AnnotatedElementUtils.hasAnnotation(targetClass, org.springframework.stereotype.Repository.class);
+            }
+        };
+        return new DefaultPointcutAdvisor(pointcut, new LazyRepositoryMetricsInterceptor(registry, detector));
+    }
+
+    /**
+     * advisor 는 일찍 만들어지므로 registry 는 처음 호출될 때 가져온다.
+     */
+    private static class LazyRepositoryMetricsInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<QueryMetricsRegistry> registry;
+        private final ObjectProvider<NPlusOneDetector> detector;
+        private volatile RepositoryMetricsInterceptor delegate;
+
+        LazyRepositoryMetricsInterceptor(ObjectProvider<QueryMetricsRegistry> registry,
+                                         ObjectProvider<NPlusOneDetector> detector) {
+            this.registry = registry;
+            this.detector = detector;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RepositoryMetricsInterceptor interceptor = delegate;
+            if (interceptor == null) {
+                interceptor = new RepositoryMetricsInterceptor(registry.getObject(), detector.getObject());
+                delegate = interceptor;
+            }
+            return interceptor.invoke(invocation);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package study.querydsl.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 커넥션/Statement/ResultSet 을 프록시로 감싸서 SQL 실행 시간과 조회 행 수를 QueryMetricsRegistry 에 기록한다.
+ * 실행 직전에는 NPlusOneDetector 에 알린다.
+ *
+ * - 실행 시간 : execute* 호출 시간 (조회는 첫 결과를 받을 때까지)
+ * - 행 수 : 조회는 ResultSet.next() 가 true 인 횟수(close 시점에 기록), 변경은 executeUpdate/executeBatch 결과
+ */
+public class QueryMetricsDataSource extends DelegatingDataSource {
+
+    private final QueryMetricsRegistry registry;
+    private final NPlusOneDetector detector;
+
+    public QueryMetricsDataSource(DataSource targetDataSource, QueryMetricsRegistry registry, NPlusOneDetector detector) {
+        super(targetDataSource);
+        this.registry = registry;
+        this.detector = detector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+    }
+
+    private static <T> T wrap(Class<T> type, T target, DelegatingHandler handler) {
+        handler.target = target;
+        return type.cast(Proxy.newProxyInstance(QueryMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private abstract static class DelegatingHandler implements InvocationHandler {
+
+        Object target;
+
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // HashMap 키 등으로 쓰일 수 있으므로 equals/hashCode 는 프록시 기준으로 맞춘다.
+            if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && (args == null || args.length == 0)) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object proceed(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends DelegatingHandler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = proceed(method, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrapStatement(method.getReturnType(), result, sql);
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T wrapStatement(Class<T> type, Object statement, String sql) {
+            return wrap(type, (T) statement, new StatementHandler(sql));
+        }
+    }
+
+    private class StatementHandler extends DelegatingHandler {
+
+        /**
+         * prepareStatement 로 받은 SQL. createStatement 면 null 이고 execute 인자로 받는다.
+         */
+        private final String preparedSql;
+        private QueryMetrics lastMetrics;
+
+        StatementHandler(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!registry.isEnabled() && !detector.isEnabled()) {
+                return proceed(method, args);
+            }
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            Object result = proceed(method, args);
+            if (result instanceof ResultSet && "getResultSet".equals(name) && lastMetrics != null) {
+                return wrap(ResultSet.class, (ResultSet) result, new ResultSetHandler(lastMetrics));
+            }
+            return result;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            String shape = SqlNormalizer.normalize(sql);
+            detector.onStatement(shape);
+            if (!registry.isEnabled()) {
+                return proceed(method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = proceed(method, args);
+            } catch (Throwable e) {
+                registry.recordStatement(shape, System.nanoTime() - start, true);
+                throw e;
+            }
+            QueryMetrics metrics = registry.recordStatement(shape, System.nanoTime() - start, false);
+            lastMetrics = metrics;
+
+            if (result instanceof ResultSet) {
+                return wrap(ResultSet.class, (ResultSet) result, new ResultSetHandler(metrics));
+            }
+            if (result instanceof Integer) {
+                registry.addRows(metrics, Math.max(0, (Integer) result));
+            } else if (result instanceof Long) {
+                registry.addRows(metrics, Math.max(0, (Long) result));
+            } else if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(0, count);
+                }
+                registry.addRows(metrics, rows);
+            }
+            return result;
+        }
+    }
+
+    private class ResultSetHandler extends DelegatingHandler {
+
+        private final QueryMetrics metrics;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(QueryMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                record();
+                return proceed(method, args);
+            }
+            Object result = proceed(method, args);
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                rows++;
+            }
+            return result;
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                registry.addRows(metrics, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL 모양별 / 리포지토리 메소드별 실행 횟수, 지연시간, 조회 행 수
+ *
+ * - 수집 : JDBC 프록시(QueryMetricsDataSource) 와 리포지토리 인터셉터(RepositoryMetricsInterceptor)
+ * - 기록은 ConcurrentHashMap + LongAdder/Atomic 카운터만 써서 락을 잡지 않는다.
+ * - 모양 종류가 max-shapes 를 넘으면 나머지는 "(other)" 로 모은다.
+ */
+@Component
+public class QueryMetricsRegistry {
+
+    static final String OTHER = "(other)";
+
+    private final boolean enabled;
+    private final int maxShapes;
+
+    private final ConcurrentMap<String, QueryMetrics> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, QueryMetrics> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * 현재 스레드에서 실행 중인 리포지토리 메소드 (중첩 호출이면 안쪽이 위)
+     */
+    private final ThreadLocal<Deque<RepositoryCall>> calls = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public QueryMetricsRegistry(@Value("${query-metrics.enabled:true}") boolean enabled,
+                                @Value("${query-metrics.max-shapes:500}") int maxShapes) {
+        this.enabled = enabled;
+        this.maxShapes = maxShapes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * SQL 한 번 실행 - 조회 행 수는 ResultSet 을 다 읽은 뒤 addRows 로 따로 더한다.
+     *
+     * @param shape SqlNormalizer 로 정규화된 SQL
+     */
+    QueryMetrics recordStatement(String shape, long nanos, boolean error) {
+        QueryMetrics metrics = metrics(statements, shape);
+        metrics.record(nanos, 1, error);
+        RepositoryCall call = calls.get().peek();
+        if (call != null) {
+            call.statements++;
+        }
+        return metrics;
+    }
+
+    void addRows(QueryMetrics statementMetrics, long rows) {
+        statementMetrics.addRows(rows);
+        RepositoryCall call = calls.get().peek();
+        if (call != null) {
+            call.rows += rows;
+        }
+    }
+
+    RepositoryCall beginRepositoryCall(String name) {
+        RepositoryCall call = new RepositoryCall(name, System.nanoTime());
+        calls.get().push(call);
+        return call;
+    }
+
+    void endRepositoryCall(RepositoryCall call, boolean error) {
+        Deque<RepositoryCall> stack = calls.get();
+        stack.remove(call);
+        if (stack.isEmpty()) {
+            calls.remove();
+        }
+        QueryMetrics metrics = metrics(repositories, call.name);
+        metrics.record(System.nanoTime() - call.startNanos, call.statements, error);
+        metrics.addRows(call.rows);
+    }
+
+    /**
+     * 전체 실행 시간이 큰 순서
+     */
+    public List<QueryMetricsSnapshot> statements() {
+        return snapshot(statements);
+    }
+
+    public List<QueryMetricsSnapshot> repositories() {
+        return snapshot(repositories);
+    }
+
+    public void reset() {
+        statements.clear();
+        repositories.clear();
+    }
+
+    private QueryMetrics metrics(ConcurrentMap<String, QueryMetrics> map, String name) {
+        QueryMetrics metrics = map.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        String key = map.size() < maxShapes ? name : OTHER;
+        return map.computeIfAbsent(key, QueryMetrics::new);
+    }
+
+    private static List<QueryMetricsSnapshot> snapshot(ConcurrentMap<String, QueryMetrics> map) {
+        List<QueryMetricsSnapshot> result = new ArrayList<>();
+        for (QueryMetrics metrics : map.values()) {
+            result.add(metrics.snapshot());
+        }
+        result.sort(Comparator.comparingDouble(QueryMetricsSnapshot::getTotalMillis).reversed());
+        return result;
+    }
+
+    static class RepositoryCall {
+        private final String name;
+        private final long startNanos;
+        private long statements;
+        private long rows;
+
+        RepositoryCall(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getStatements() {
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 조회 시점의 지표 (시간은 ms)
+ */
+@Getter
+public class QueryMetricsSnapshot {
+
+    private final String name;
+    private final long count;
+    private final long errors;
+    private final long rows;
+    private final long statements;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double maxMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+
+    QueryMetricsSnapshot(String name, long count, long errors, long rows, long statements,
+                         long totalNanos, long maxNanos, long p50Nanos, long p95Nanos, long p99Nanos) {
+        this.name = name;
+        this.count = count;
+        this.errors = errors;
+        this.rows = rows;
+        this.statements = statements;
+        this.totalMillis = millis(totalNanos);
+        this.meanMillis = count == 0 ? 0 : millis(totalNanos / count);
+        this.maxMillis = millis(maxNanos);
+        this.p50Millis = millis(p50Nanos);
+        this.p95Millis = millis(p95Nanos);
+        this.p99Millis = millis(p99Nanos);
+    }
+
+    private static double millis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
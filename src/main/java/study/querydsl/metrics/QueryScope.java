@@ -0,0 +1,72 @@
+package study.querydsl.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청/트랜잭션(또는 직접 연 구간) 동안 실행된 SQL 과 지연 로딩 횟수
+ * 한 스레드 안에서만 쓰이므로 동기화하지 않는다.
+ */
+public class QueryScope implements AutoCloseable {
+
+    private final NPlusOneDetector detector;
+    private final String name;
+
+    private long statementCount;
+    private long lazyLoadCount;
+    private final Map<String, Integer> selectShapes = new HashMap<>();
+    private final Map<String, Integer> lazyLoads = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+
+    QueryScope(NPlusOneDetector detector, String name) {
+        this.detector = detector;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    public long getLazyLoadCount() {
+        return lazyLoadCount;
+    }
+
+    public List<String> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * @return 이번이 같은 모양 select 의 몇 번째 실행인지 (select 가 아니면 0)
+     */
+    int addStatement(String shape) {
+        statementCount++;
+        if (!shape.regionMatches(true, 0, "select", 0, 6)) {
+            return 0;
+        }
+        return selectShapes.merge(shape, 1, Integer::sum);
+    }
+
+    /**
+     * @return 이번이 같은 대상(엔티티/컬렉션)의 몇 번째 지연 로딩인지
+     */
+    int addLazyLoad(String role) {
+        lazyLoadCount++;
+        return lazyLoads.merge(role, 1, Integer::sum);
+    }
+
+    void addViolation(String violation) {
+        violations.add(violation);
+    }
+
+    @Override
+    public void close() {
+        detector.close(this);
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.metrics;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 하나를 NPlusOneDetector 구간으로 묶는다. (open-in-view 로 컨트롤러/뷰에서 일어나는 지연 로딩까지 포함)
+ */
+class QueryScopeInterceptor implements HandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = QueryScopeInterceptor.class.getName() + ".scope";
+
+    private final NPlusOneDetector detector;
+
+    QueryScopeInterceptor(NPlusOneDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (detector.isEnabled()) {
+            request.setAttribute(SCOPE_ATTRIBUTE, detector.open(request.getMethod() + " " + request.getRequestURI()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        closeScope(request);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 비동기 처리로 넘어가면 이 스레드의 구간은 닫는다.
+        closeScope(request);
+    }
+
+    private static void closeScope(HttpServletRequest request) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope instanceof QueryScope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            ((QueryScope) scope).close();
+        }
+    }
+}
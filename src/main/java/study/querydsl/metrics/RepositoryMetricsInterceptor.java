@@ -0,0 +1,72 @@
+package study.querydsl.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 리포지토리 메소드 호출 단위로 시간, 실행한 SQL 수, 조회 행 수를 기록한다.
+ * 이름은 "MemberRepository.searchPageComplex" 처럼 리포지토리 타입 + 메소드명
+ * 끝나면 NPlusOneDetector 로 메소드별 쿼리 수 한도를 확인한다.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final QueryMetricsRegistry registry;
+    private final NPlusOneDetector detector;
+    private final ConcurrentMap<MethodClassKey, String> names = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(QueryMetricsRegistry registry, NPlusOneDetector detector) {
+        this.registry = registry;
+        this.detector = detector;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!registry.isEnabled()) {
+            return invocation.proceed();
+        }
+
+        QueryMetricsRegistry.RepositoryCall call = registry.beginRepositoryCall(name(invocation));
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            registry.endRepositoryCall(call, true);
+            throw e;
+        }
+        registry.endRepositoryCall(call, false);
+        detector.checkMethodBudget(call.getName(), call.getStatements());
+        return result;
+    }
+
+    private String name(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target == null ? invocation.getMethod().getDeclaringClass() : target.getClass();
+        return names.computeIfAbsent(new MethodClassKey(invocation.getMethod(), targetClass),
+                key -> repositoryName(target, invocation.getMethod().getDeclaringClass()) + "." + invocation.getMethod().getName());
+    }
+
+    /**
+     * spring data 리포지토리는 JDK 프록시이므로 구현체(SimpleJpaRepository) 대신 사용자가 선언한 인터페이스 이름을 쓴다.
+     */
+    private static String repositoryName(Object target, Class<?> declaringClass) {
+        if (target instanceof Advised) {
+            for (Class<?> type : ((Advised) target).getProxiedInterfaces()) {
+                if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")) {
+                    return type.getSimpleName();
+                }
+            }
+        }
+        if (target == null) {
+            return declaringClass.getSimpleName();
+        }
+        return ClassUtils.getUserClass(AopUtils.getTargetClass(target)).getSimpleName();
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQL 을 모양(shape) 단위로 묶기 위한 정규화
+ * 주석 제거, 문자열/숫자 리터럴 -> ?, in (?, ?, ...) -> in (?), 공백 정리
+ */
+public final class SqlNormalizer {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlNormalizer() {
+    }
+
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "(unknown)";
+        }
+        String normalized = COMMENT.matcher(sql).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,215 @@
+package study.querydsl.projection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * DTO 생성자/setter/필드 접근자를 만들고 클래스별로 캐시한다.
+ * 가능하면 LambdaMetafactory 로 Supplier/BiConsumer 구현체를 만들어 일반 메서드 호출처럼 인라인되게 하고,
+ * public 이 아니라 만들 수 없으면 MethodHandle 로 대신한다. 행마다 리플렉션을 쓰지 않는다.
+ */
+final class DtoAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType SPREAD_CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType SETTER_ERASED = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ConcurrentMap<Class<?>, Supplier<Object>> NO_ARG_CONSTRUCTORS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, BiConsumer<Object, Object>> SETTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, MethodHandle> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private DtoAccessors() {
+    }
+
+    static Supplier<Object> noArgConstructor(Class<?> type) {
+        return NO_ARG_CONSTRUCTORS.computeIfAbsent(type, DtoAccessors::createNoArgConstructor);
+    }
+
+    /**
+     * @param fieldAccess true 면 필드에 직접, false 면 setter 로 값을 넣는다.
+     */
+    static BiConsumer<Object, Object> setter(Class<?> type, String property, boolean fieldAccess) {
+        String key = type.getName() + (fieldAccess ? "#" : ".") + property;
+        return SETTERS.computeIfAbsent(key, k -> fieldAccess ? createFieldSetter(type, property) : createMethodSetter(type, property));
+    }
+
+    /**
+     * 인자 타입에 맞는 생성자 - (Object[]) -> Object 형태
+     */
+    static MethodHandle constructor(Class<?> type, Class<?>[] argTypes) {
+        StringBuilder key = new StringBuilder(type.getName());
+        for (Class<?> argType : argTypes) {
+            key.append(',').append(argType.getName());
+        }
+        return CONSTRUCTORS.computeIfAbsent(key.toString(), k -> createConstructor(type, argTypes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> createNoArgConstructor(Class<?> type) {
+        Constructor<?> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " has no default constructor", e);
+        }
+
+        if (isPublic(constructor.getModifiers(), type)) {
+            try {
+                MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        handle,
+                        MethodType.methodType(type));
+                return (Supplier<Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // 아래 MethodHandle 방식으로 대신한다.
+            }
+        }
+
+        constructor.setAccessible(true);
+        MethodHandle handle = unreflect(() -> LOOKUP.unreflectConstructor(constructor))
+                .asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return handle.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createMethodSetter(Class<?> type, String property) {
+        Method setter = findSetter(type, property);
+        Class<?> valueType = wrap(setter.getParameterTypes()[0]);
+
+        if (isPublic(setter.getModifiers(), setter.getDeclaringClass())) {
+            try {
+                MethodHandle handle = LOOKUP.unreflect(setter);
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        SETTER_ERASED,
+                        handle,
+                        MethodType.methodType(void.class, type, valueType));
+                return (BiConsumer<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // 아래 MethodHandle 방식으로 대신한다.
+            }
+        }
+
+        setter.setAccessible(true);
+        return handleSetter(unreflect(() -> LOOKUP.unreflect(setter)));
+    }
+
+    private static BiConsumer<Object, Object> createFieldSetter(Class<?> type, String property) {
+        Field field = findField(type, property);
+        field.setAccessible(true);
+        return handleSetter(unreflect(() -> LOOKUP.unreflectSetter(field)));
+    }
+
+    private static BiConsumer<Object, Object> handleSetter(MethodHandle handle) {
+        MethodHandle erased = handle.asType(SETTER_ERASED);
+        return (bean, value) -> {
+            try {
+                erased.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static MethodHandle createConstructor(Class<?> type, Class<?>[] argTypes) {
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+            if (isAssignable(candidate.getParameterTypes(), argTypes)) {
+                candidate.setAccessible(true);
+                return unreflect(() -> LOOKUP.unreflectConstructor(candidate))
+                        .asSpreader(Object[].class, argTypes.length)
+                        .asType(SPREAD_CONSTRUCTOR);
+            }
+        }
+        throw new IllegalArgumentException("No constructor of " + type.getName() + " matches " + Arrays.toString(argTypes));
+    }
+
+    private static Method findSetter(Class<?> type, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No setter for " + property + " in " + type.getName());
+    }
+
+    private static Field findField(Class<?> type, String property) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(property);
+            } catch (NoSuchFieldException e) {
+                // 상위 클래스에서 계속 찾는다.
+            }
+        }
+        throw new IllegalArgumentException("No field " + property + " in " + type.getName());
+    }
+
+    private static boolean isAssignable(Class<?>[] parameterTypes, Class<?>[] argTypes) {
+        if (parameterTypes.length != argTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!wrap(parameterTypes[i]).isAssignableFrom(wrap(argTypes[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(int modifiers, Class<?> declaringClass) {
+        return Modifier.isPublic(modifiers) && Modifier.isPublic(declaringClass.getModifiers());
+    }
+
+    static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static MethodHandle unreflect(HandleSupplier supplier) {
+        try {
+            return supplier.get();
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    @FunctionalInterface
+    private interface HandleSupplier {
+        MethodHandle get() throws IllegalAccessException;
+    }
+}
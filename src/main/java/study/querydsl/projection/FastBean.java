@@ -0,0 +1,76 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / fields 와 같은 방식(기본 생성자 + 프로퍼티 이름으로 값 채우기)이지만,
+ * 생성자와 setter/필드 접근자를 DtoAccessors 에서 한 번 만들어 두고 행마다 재사용한다.
+ * 프로퍼티 이름은 경로 이름이거나 as("name") 로 준 별칭이다.
+ */
+public class FastBean<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Expression<?>> args;
+    private final transient Supplier<Object> constructor;
+    private final transient BiConsumer<Object, Object>[] setters;
+
+    @SuppressWarnings("unchecked")
+    FastBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... args) {
+        super(type);
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+        this.constructor = DtoAccessors.noArgConstructor(type);
+        this.setters = new BiConsumer[args.length];
+        for (int i = 0; i < args.length; i++) {
+            setters[i] = DtoAccessors.setter(type, propertyName(args[i]), fieldAccess);
+        }
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        Object bean = constructor.get();
+        for (int i = 0; i < values.length; i++) {
+            // QBean 과 같이 null 은 건너뛴다. (primitive 필드 보호)
+            if (values[i] != null) {
+                setters[i].accept(bean, values[i]);
+            }
+        }
+        return (T) bean;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) expr).getArg(1);
+            if (alias instanceof Path) {
+                return ((Path<?>) alias).getMetadata().getName();
+            }
+            return alias.toString();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr + ", use a path or as(\"property\")");
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Projections.constructor 와 같은 방식이지만, 인자 타입에 맞는 생성자를 MethodHandle 로 한 번 찾아두고
+ * 행마다 리플렉션 없이 호출한다.
+ */
+public class FastConstructor<T> extends FactoryExpressionBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Expression<?>> args;
+    private final transient MethodHandle constructor;
+
+    FastConstructor(Class<? extends T> type, Expression<?>... args) {
+        super(type);
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+
+        Class<?>[] argTypes = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argTypes[i] = args[i].getType();
+        }
+        this.constructor = DtoAccessors.constructor(type, argTypes);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        try {
+            return (T) (Object) constructor.invokeExact(values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+
+/**
+ * com.querydsl.core.types.Projections 와 같은 모양의 팩토리
+ * ex) select(FastProjections.fields(userDto.class, member.username.as("name"), member.age))
+ *
+ * @QueryProjection 을 붙일 수 없는 DTO 도 행마다 리플렉션 없이 만든다. (DtoAccessors)
+ */
+public final class FastProjections {
+
+    private FastProjections() {
+    }
+
+    /**
+     * 기본 생성자 + setter
+     */
+    public static <T> FastBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new FastBean<>(type, false, exprs);
+    }
+
+    /**
+     * 기본 생성자 + 필드 직접 접근
+     */
+    public static <T> FastBean<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new FastBean<>(type, true, exprs);
+    }
+
+    /**
+     * 인자 타입이 맞는 생성자
+     */
+    public static <T> FastConstructor<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+        return new FastConstructor<>(type, exprs);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.entity.Team;
+
+import java.util.Collections;
+
+/**
+ * batch fetch 설정을 hibernate 에 넘긴다.
+ *
+ * - 전체 : hibernate.default_batch_fetch_size / batch_fetch_style
+ * - 연관관계별 : @BatchSize 대신 설정값으로 바꿀 수 있도록, persister 가 만들어지기 전(Integrator)에 매핑 정보의 batch size 를 바꾼다.
+ */
+@Configuration
+@EnableConfigurationProperties(BatchFetchProperties.class)
+public class BatchFetchConfig {
+
+    static final String TEAM_MEMBERS_ROLE = Team.class.getName() + ".members";
+
+    @Bean
+    public HibernatePropertiesCustomizer batchFetchCustomizer(BatchFetchProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, String.valueOf(properties.getDefaultSize()));
+            hibernateProperties.put(AvailableSettings.BATCH_FETCH_STYLE, properties.getStyle().name());
+            hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> Collections.singletonList(new AssociationBatchSizeIntegrator(properties)));
+        };
+    }
+
+    /**
+     * 0 이하인 값은 건드리지 않는다. (매핑 정보의 -1 = 전체 기본값을 따른다)
+     */
+    static class AssociationBatchSizeIntegrator implements Integrator {
+
+        private final BatchFetchProperties properties;
+
+        AssociationBatchSizeIntegrator(BatchFetchProperties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+            if (properties.getMemberTeam() > 0) {
+                metadata.getEntityBinding(Team.class.getName()).setBatchSize(properties.getMemberTeam());
+            }
+            if (properties.getTeamMembers() > 0) {
+                metadata.getCollectionBinding(TEAM_MEMBERS_ROLE).setBatchSize(properties.getTeamMembers());
+            }
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.loader.BatchFetchStyle;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 지연 로딩 batch fetch 설정 (batch-fetch.*)
+ * 프록시/컬렉션 하나를 초기화할 때 영속성 컨텍스트에 있는 같은 종류의 미초기화 대상을 최대 size 개까지 IN (...) 으로 함께 읽는다.
+ * -> N 번의 지연 로딩이 ceil(N / size) 번의 쿼리가 된다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("batch-fetch")
+public class BatchFetchProperties {
+
+    /**
+     * 전체 기본값 (hibernate.default_batch_fetch_size) - 1 이하면 batch fetch 를 하지 않는다.
+     */
+    private int defaultSize = 100;
+
+    /**
+     * PADDED : 남는 자리를 마지막 id 로 채워서 IN 절 길이(= SQL 모양)를 몇 가지로 고정한다.
+     */
+    private BatchFetchStyle style = BatchFetchStyle.PADDED;
+
+    /**
+     * Member.team (Team 프록시 초기화) - Team 엔티티 단위 설정이라 Team 을 지연 로딩하는 모든 곳에 적용된다.
+     * 0 이하면 defaultSize 를 따른다.
+     */
+    private int memberTeam = -1;
+
+    /**
+     * Team.members 컬렉션 초기화 - 0 이하면 defaultSize 를 따른다.
+     */
+    private int teamMembers = -1;
+}
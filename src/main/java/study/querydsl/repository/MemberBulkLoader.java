@@ -0,0 +1,157 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.readmodel.MemberTeamReadModel;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * 대량 적재 - 팀을 먼저 저장하고 회원을 chunkSize 단위로 저장한다.
+ *
+ * - id : 시퀀스 allocationSize(50) 만큼 미리 받아오므로 행마다 시퀀스를 조회하지 않는다.
+ * - insert : hibernate.jdbc.batch_size 단위로 묶어서 보낸다.
+ *   읽기 모델(member_team)은 행마다 쓰지 않고 chunk 마다 insert 한 id 범위를 sync 한다. (배치가 끊기지 않도록)
+ * - chunk 마다 flush/clear 하고 별도 트랜잭션으로 커밋해서 영속성 컨텍스트가 커지지 않게 한다.
+ *   이미 트랜잭션 안에서 호출해도 chunk 마다 새 트랜잭션(REQUIRES_NEW)으로 커밋한다.
+ *   호출한 쪽의 영속성 컨텍스트는 clear 되지 않지만, 호출한 쪽이 롤백해도 적재한 행은 남는다.
+ */
+@Slf4j
+@Component
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final MemberTeamReadModel memberTeamReadModel;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            MemberTeamReadModel memberTeamReadModel,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${member.bulk-load.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk-size must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.memberTeamReadModel = memberTeamReadModel;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param teamnames   저장할 팀 이름
+     * @param memberCount 저장할 회원 수
+     * @param rows        i 번째(0 부터) 회원 정보. 팀명은 teamnames 중 하나이거나 null
+     */
+    public Result load(Collection<String> teamnames, long memberCount, LongFunction<Row> rows) {
+        long start = System.nanoTime();
+
+        Map<String, Long> teamIds = transactionTemplate.execute(status -> persistTeams(teamnames));
+
+        long chunks = 0;
+        for (long from = 0; from < memberCount; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize, memberCount);
+            transactionTemplate.executeWithoutResult(status -> persistMembers(teamIds, chunkFrom, chunkTo, rows));
+            chunks++;
+            log.debug("bulk load progress: {}/{}", chunkTo, memberCount);
+        }
+
+        Result result = new Result(teamnames.size(), memberCount, chunks, System.nanoTime() - start);
+        log.info("bulk load finished: {}", result);
+        return result;
+    }
+
+    private Map<String, Long> persistTeams(Collection<String> teamnames) {
+        Map<String, Long> teamIds = new HashMap<>();
+        for (String teamname : teamnames) {
+            Team team = new Team(teamname);
+            em.persist(team);
+            teamIds.put(teamname, team.getId());
+        }
+        em.flush();
+        em.clear();
+        return teamIds;
+    }
+
+    private void persistMembers(Map<String, Long> teamIds, long from, long to, LongFunction<Row> rows) {
+        // clear 이후에는 이전 chunk 의 팀 참조를 쓸 수 없으므로 chunk 마다 프록시를 다시 받는다.
+        Map<String, Team> teams = new HashMap<>();
+        long[] idRange = {Long.MAX_VALUE, Long.MIN_VALUE};
+        memberTeamReadModel.deferInserts(() -> {
+            for (long i = from; i < to; i++) {
+                Row row = rows.apply(i);
+                Team team = row.getTeamname() == null ? null
+                        : teams.computeIfAbsent(row.getTeamname(), teamname -> em.getReference(Team.class, teamId(teamIds, teamname)));
+                Member member = new Member(row.getUsername(), row.getAge(), team);
+                em.persist(member);
+                idRange[0] = Math.min(idRange[0], member.getId());
+                idRange[1] = Math.max(idRange[1], member.getId());
+            }
+            em.flush();
+            return null;
+        });
+        if (idRange[0] <= idRange[1]) {
+            memberTeamReadModel.sync(idRange[0], idRange[1] + 1);
+        }
+        em.clear();
+    }
+
+    private static Long teamId(Map<String, Long> teamIds, String teamname) {
+        Long teamId = teamIds.get(teamname);
+        if (teamId == null) {
+            throw new IllegalArgumentException("unknown team: " + teamname);
+        }
+        return teamId;
+    }
+
+    /**
+     * 적재할 회원 한 명
+     */
+    @Getter
+    public static class Row {
+        private final String username;
+        private final int age;
+        private final String teamname;
+
+        public Row(String username, int age, String teamname) {
+            this.username = username;
+            this.age = age;
+            this.teamname = teamname;
+        }
+    }
+
+    /**
+     * 적재 결과
+     */
+    @Getter
+    @ToString
+    public static class Result {
+        private final int teams;
+        private final long members;
+        private final long chunks;
+        private final long elapsedMillis;
+        private final long rowsPerSecond;
+
+        Result(int teams, long members, long chunks, long elapsedNanos) {
+            this.teams = teams;
+            this.members = members;
+            this.chunks = chunks;
+            this.elapsedMillis = elapsedNanos / 1_000_000;
+            this.rowsPerSecond = elapsedNanos == 0 ? 0 : (teams + members) * 1_000_000_000L / elapsedNanos;
+        }
+    }
+}
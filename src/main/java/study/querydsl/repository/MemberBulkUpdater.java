@@ -0,0 +1,193 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.event.MemberChangePublisher;
+import study.querydsl.repository.event.MemberSnapshot;
+import study.querydsl.repository.readmodel.MemberTeamReadModel;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 영속성 컨텍스트를 비우지 않는 벌크 수정
+ * update 후 em.clear() 대신, where 조건에 걸린 회원 중 영속성 컨텍스트에 있는 것만 다시 읽거나(REFRESH) 떼어낸다(EVICT).
+ *
+ * - 걸리는 행이 max-tracked-rows 이하면 변경 전/후 값을 읽어서 검색 캐시/읽기 모델에 그 행들만 알린다.
+ *   update 도 변경 전 값을 읽은 행(id)으로 한정하므로, 그 사이에 조건에 걸리게 된 행은 바뀌지 않는다.
+ *   넘으면 기존 벌크 연산처럼 전체 무효화(publishBulkChange)한다.
+ * - where 는 member 컬럼만 쓸 수 있다. (update 절에는 join 이 없다)
+ * - 2차 캐시의 Member 영역은 hibernate 가 벌크 update 시 통째로 비운다.
+ */
+@Component
+public class MemberBulkUpdater {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberChangePublisher memberChangePublisher;
+    private final MemberTeamReadModel memberTeamReadModel;
+    private final int maxTrackedRows;
+
+    public MemberBulkUpdater(EntityManager em,
+                             MemberChangePublisher memberChangePublisher,
+                             MemberTeamReadModel memberTeamReadModel,
+                             @Value("${member.bulk-update.max-tracked-rows:1000}") int maxTrackedRows) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.memberChangePublisher = memberChangePublisher;
+        this.memberTeamReadModel = memberTeamReadModel;
+        this.maxTrackedRows = maxTrackedRows;
+    }
+
+    /**
+     * 수정 후 영속성 컨텍스트의 회원을 어떻게 맞출지
+     */
+    public enum Mode {
+        /**
+         * 같은 인스턴스에 DB 값을 다시 읽는다. (이미 들고 있는 참조도 최신 값이 된다)
+         */
+        REFRESH,
+        /**
+         * 영속성 컨텍스트에서 떼어낸다. 다음 조회 때 다시 읽는다.
+         */
+        EVICT
+    }
+
+    /**
+     * ex) update(member.age.lt(20), update -> update.set(member.age, member.age.add(1)), Mode.REFRESH)
+     *
+     * @return 수정된 행 수
+     */
+    public long update(Predicate where, UnaryOperator<JPAUpdateClause> setter, Mode mode) {
+        // 아직 flush 안 된 변경이 벌크 update 에 덮어써지거나, refresh 로 사라지지 않도록 먼저 내보낸다.
+        em.flush();
+
+        Map<Long, MemberSnapshot> before = snapshotsMatching(where);
+        boolean tracked = before.size() <= maxTrackedRows;
+        if (tracked && before.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Member> managed = managedMembers();
+        List<Member> affected = tracked ? pick(managed, before.keySet()) : pick(managed, matchingIds(where, managed.keySet()));
+
+        Predicate updateWhere = tracked ? ExpressionUtils.allOf(where, member.id.in(before.keySet())) : where;
+        long count = setter.apply(queryFactory.update(member)).where(updateWhere).execute();
+
+        for (Member changed : affected) {
+            if (mode == Mode.REFRESH) {
+                em.refresh(changed);
+            } else {
+                em.detach(changed);
+            }
+        }
+
+        if (tracked) {
+            memberTeamReadModel.sync(Collections.min(before.keySet()), Collections.max(before.keySet()) + 1);
+            memberChangePublisher.publishMembersChanged(before, snapshotsById(new ArrayList<>(before.keySet())));
+        } else {
+            memberTeamReadModel.syncAll();
+            memberChangePublisher.publishBulkChange();
+        }
+        return count;
+    }
+
+    /**
+     * where 에 걸리는 회원의 검색 컬럼 값 - max-tracked-rows 를 넘으면 거기서 멈춘다.
+     */
+    private Map<Long, MemberSnapshot> snapshotsMatching(Predicate where) {
+        Map<Long, MemberSnapshot> snapshots = new LinkedHashMap<>();
+        queryFactory.select(member.id, member.username, member.age, team.teamname)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .limit(maxTrackedRows + 1L)
+                .fetch()
+                .forEach(row -> snapshots.put(row.get(member.id), snapshot(row)));
+        return snapshots;
+    }
+
+    private Map<Long, MemberSnapshot> snapshotsById(List<Long> ids) {
+        Map<Long, MemberSnapshot> snapshots = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            queryFactory.select(member.id, member.username, member.age, team.teamname)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()))))
+                    .fetch()
+                    .forEach(row -> snapshots.put(row.get(member.id), snapshot(row)));
+        }
+        return snapshots;
+    }
+
+    /**
+     * 영속성 컨텍스트에 있는 회원 중 where 에 걸리는 id (걸리는 행 전체를 읽지 않는다)
+     */
+    private Set<Long> matchingIds(Predicate where, Set<Long> managedIds) {
+        List<Long> ids = new ArrayList<>(managedIds);
+        Set<Long> matching = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            matching.addAll(queryFactory.select(member.id)
+                    .from(member)
+                    .where(where, member.id.in(ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()))))
+                    .fetch());
+        }
+        return matching;
+    }
+
+    private Map<Long, Member> managedMembers() {
+        Map<Long, Member> managed = new HashMap<>();
+        for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class)
+                .getPersistenceContext()
+                .reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                Member managedMember = (Member) entry.getKey();
+                managed.put(managedMember.getId(), managedMember);
+            }
+        }
+        return managed;
+    }
+
+    private static List<Member> pick(Map<Long, Member> managed, Set<Long> ids) {
+        List<Member> picked = new ArrayList<>();
+        if (managed.size() <= ids.size()) {
+            managed.forEach((id, managedMember) -> {
+                if (ids.contains(id)) {
+                    picked.add(managedMember);
+                }
+            });
+        } else {
+            for (Long id : ids) {
+                Member managedMember = managed.get(id);
+                if (managedMember != null) {
+                    picked.add(managedMember);
+                }
+            }
+        }
+        return picked;
+    }
+
+    private static MemberSnapshot snapshot(Tuple row) {
+        return new MemberSnapshot(row.get(member.username), row.get(member.age), row.get(team.teamname), true);
+    }
+}
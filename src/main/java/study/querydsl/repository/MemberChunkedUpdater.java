@@ -0,0 +1,250 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkUpdateCheckpoint;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 큰 테이블용 벌크 수정 - member_id 범위로 나눠 chunk 마다 별도 트랜잭션으로 커밋한다.
+ * chunk 범위는 고정 폭이 아니라 다음 id 부터 chunk 크기만큼의 실제 id 로 정한다. (keyset - id 가 듬성듬성해도 빈 chunk 가 없다)
+ * 하나의 update 로 수백만 행을 바꾸면 끝날 때까지 잠금과 undo 가 쌓이므로, 잠금은 chunk 하나 동안만 잡는다.
+ *
+ * - chunk : MemberBulkUpdater 로 실행하므로 검색 캐시/읽기 모델/열 인덱스도 chunk 마다 맞춰진다.
+ * - 크기 : chunk 하나가 target-chunk-time 보다 오래 걸리면 절반으로 줄이고, 빠르면 chunk-size 까지 두 배로 늘린다.
+ * - throttle : chunk 사이에 pause 만큼 쉬어서 다른 트랜잭션(검색 등)이 끼어들 틈을 준다.
+ * - 이어하기 : 진행 위치(BulkUpdateCheckpoint)를 chunk 와 같은 트랜잭션에서 저장한다.
+ *   실패하면 같은 jobName 으로 다시 실행해서 커밋된 chunk 다음부터 이어간다. (같은 행이 두 번 바뀌지 않는다)
+ *   이어할 때 where 가 처음과 다르면 IllegalArgumentException (setter 는 비교할 수 없으므로 호출한 쪽이 맞춰야 한다)
+ * - 범위는 처음 시작할 때의 max(member_id) 까지다. 그 뒤에 추가된 회원은 바뀌지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberChunkedUpdater {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberBulkUpdater memberBulkUpdater;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final long targetChunkNanos;
+    private final long pauseMillis;
+
+    public MemberChunkedUpdater(EntityManager em,
+                                MemberBulkUpdater memberBulkUpdater,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.bulk-update.chunk-size:1000}") int chunkSize,
+                                @Value("${member.bulk-update.target-chunk-time:200ms}") Duration targetChunkTime,
+                                @Value("${member.bulk-update.pause:50ms}") Duration pause) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk-size must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.memberBulkUpdater = memberBulkUpdater;
+        this.chunkSize = chunkSize;
+        this.targetChunkNanos = targetChunkTime.toNanos();
+        this.pauseMillis = pause.toMillis();
+
+        // 호출한 쪽이 트랜잭션 안이어도 chunk 마다 커밋한다.
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Result update(String jobName, Predicate where, UnaryOperator<JPAUpdateClause> setter) {
+        return update(jobName, where, setter, progress -> { });
+    }
+
+    /**
+     * ex) update("age+1", member.age.lt(20), update -> update.set(member.age, member.age.add(1)), System.out::println)
+     *
+     * @param jobName  이어하기 키 - 끝난 job 을 같은 이름으로 다시 실행하면 아무것도 하지 않는다.
+     * @param where    member 컬럼만 쓸 수 있다. (null 이면 전체)
+     * @param progress chunk 가 커밋될 때마다 호출된다.
+     * @throws IllegalArgumentException 같은 jobName 의 job 이 다른 where 로 시작된 경우
+     */
+    public Result update(String jobName, Predicate where, UnaryOperator<JPAUpdateClause> setter,
+                         Consumer<Progress> progress) {
+        long start = System.nanoTime();
+        boolean resumed = chunkTransaction.execute(status -> startOrResume(jobName, fingerprint(where)));
+
+        long chunks = 0;
+        long updatedRows = 0;
+        int currentChunkSize = chunkSize;
+        while (true) {
+            long chunkStart = System.nanoTime();
+            int size = currentChunkSize;
+            Progress chunk = chunkTransaction.execute(status -> runChunk(jobName, where, setter, size));
+            if (chunk == null) {
+                break;
+            }
+            chunks++;
+            updatedRows += chunk.getChunkUpdatedRows();
+            log.debug("chunked update progress: {}", chunk);
+            progress.accept(chunk);
+
+            currentChunkSize = nextChunkSize(currentChunkSize, System.nanoTime() - chunkStart);
+            pause();
+        }
+
+        BulkUpdateCheckpoint checkpoint = chunkTransaction.execute(status -> em.find(BulkUpdateCheckpoint.class, jobName));
+        Result result = new Result(jobName, resumed, chunks, updatedRows, checkpoint.getUpdatedRows(),
+                System.nanoTime() - start);
+        log.info("chunked update finished: {}", result);
+        return result;
+    }
+
+    /**
+     * @return 이미 있던 job 을 이어서 실행하면 true
+     */
+    private boolean startOrResume(String jobName, String predicate) {
+        BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, jobName);
+        if (checkpoint != null) {
+            if (!predicate.equals(checkpoint.getPredicate())) {
+                throw new IllegalArgumentException("chunked update '" + jobName + "' was started with a different predicate: "
+                        + checkpoint.getPredicate() + " (now " + predicate + ")");
+            }
+            log.info("resuming chunked update: {}", checkpoint);
+            return true;
+        }
+
+        Tuple range = queryFactory.select(member.id.min(), member.id.max()).from(member).fetchOne();
+        Long minId = range.get(member.id.min());
+        Long maxId = range.get(member.id.max());
+        em.persist(minId == null
+                ? new BulkUpdateCheckpoint(jobName, 1, 0, predicate)
+                : new BulkUpdateCheckpoint(jobName, minId, maxId, predicate));
+        return false;
+    }
+
+    /**
+     * 진행 위치를 잠그고 읽으므로 같은 job 을 동시에 실행해도 chunk 가 겹치지 않는다.
+     *
+     * @return 끝났으면 null
+     */
+    private Progress runChunk(String jobName, Predicate where, UnaryOperator<JPAUpdateClause> setter, int size) {
+        BulkUpdateCheckpoint checkpoint = em.find(BulkUpdateCheckpoint.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint.isCompleted()) {
+            return null;
+        }
+
+        long fromId = checkpoint.getNextId();
+        long toId = nextToId(fromId, checkpoint.getMaxId(), size);
+        long updated = memberBulkUpdater.update(ExpressionUtils.allOf(where, member.id.goe(fromId), member.id.lt(toId)),
+                setter, MemberBulkUpdater.Mode.EVICT);
+
+        checkpoint.chunkCompleted(toId, updated);
+        return new Progress(checkpoint, fromId, updated);
+    }
+
+    /**
+     * fromId 부터 size 번째 id + 1 - 남은 회원이 size 보다 적으면 maxId + 1
+     */
+    private long nextToId(long fromId, long maxId, int size) {
+        Long lastId = queryFactory.select(member.id)
+                .from(member)
+                .where(member.id.goe(fromId), member.id.loe(maxId))
+                .orderBy(member.id.asc())
+                .offset(size - 1)
+                .limit(1)
+                .fetchFirst();
+        return lastId != null ? lastId + 1 : maxId + 1;
+    }
+
+    /**
+     * where 를 비교하기 위한 문자열 (querydsl 의 toString 은 상수 값까지 포함한다)
+     */
+    private static String fingerprint(Predicate where) {
+        return where != null ? where.toString() : "";
+    }
+
+    private int nextChunkSize(int current, long elapsedNanos) {
+        if (elapsedNanos > targetChunkNanos) {
+            return Math.max(1, current / 2);
+        }
+        if (elapsedNanos < targetChunkNanos / 2) {
+            return (int) Math.min(chunkSize, current * 2L);
+        }
+        return current;
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while pausing between chunks", e);
+        }
+    }
+
+    /**
+     * chunk 하나가 커밋된 시점의 진행 상황
+     */
+    @Getter
+    @ToString
+    public static class Progress {
+        private final String jobName;
+        private final long fromId;
+        private final long toId;
+        private final long maxId;
+        private final long chunkUpdatedRows;
+        private final long updatedRows;
+        private final long chunks;
+        private final boolean completed;
+
+        Progress(BulkUpdateCheckpoint checkpoint, long fromId, long chunkUpdatedRows) {
+            this.jobName = checkpoint.getJobName();
+            this.fromId = fromId;
+            this.toId = checkpoint.getNextId();
+            this.maxId = checkpoint.getMaxId();
+            this.chunkUpdatedRows = chunkUpdatedRows;
+            this.updatedRows = checkpoint.getUpdatedRows();
+            this.chunks = checkpoint.getChunks();
+            this.completed = checkpoint.isCompleted();
+        }
+    }
+
+    /**
+     * 실행 결과 (updatedRows, chunks 는 이번 실행분, totalUpdatedRows 는 이어한 것까지 합친 값)
+     */
+    @Getter
+    @ToString
+    public static class Result {
+        private final String jobName;
+        private final boolean resumed;
+        private final long chunks;
+        private final long updatedRows;
+        private final long totalUpdatedRows;
+        private final long elapsedMillis;
+
+        Result(String jobName, boolean resumed, long chunks, long updatedRows, long totalUpdatedRows, long elapsedNanos) {
+            this.jobName = jobName;
+            this.resumed = resumed;
+            this.chunks = chunks;
+            this.updatedRows = updatedRows;
+            this.totalUpdatedRows = totalUpdatedRows;
+            this.elapsedMillis = elapsedNanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * keyset 페이징 커서 인코딩/디코딩
+ * 마지막으로 읽은 member.id 를 감싸서 클라이언트에는 불투명 토큰으로만 노출한다.
+ */
+public final class MemberCursor {
+
+    private static final String PREFIX = "id:";
+
+    private MemberCursor() {
+    }
+
+    public static String encode(Long lastMemberId) {
+        if (lastMemberId == null) {
+            return null;
+        }
+        byte[] raw = (PREFIX + lastMemberId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * @return 커서가 없으면 null (첫 페이지)
+     * @throws IllegalArgumentException 잘못된 커서
+     */
+    public static Long decode(String cursor) {
+        if (!hasText(cursor)) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor);
+        }
+        try {
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -14,10 +19,17 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.cache.MemberSearchResultCache;
+import study.querydsl.repository.columnar.MemberColumnarIndex;
+import study.querydsl.repository.event.MemberChangePublisher;
+import study.querydsl.repository.readmodel.MemberTeamReadModel;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
@@ -28,10 +40,31 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberChangePublisher memberChangePublisher;
+    private final MemberSearchQueryTemplates searchQueryTemplates;
+    private final MemberSearchResultCache searchResultCache;
+    private final MemberSearchCoalescer searchCoalescer;
+    private final MemberTeamReadModel memberTeamReadModel;
+    private final MemberColumnarIndex columnarIndex;
+    private final MemberBulkUpdater memberBulkUpdater;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em,
+                               MemberChangePublisher memberChangePublisher,
+                               MemberSearchQueryTemplates searchQueryTemplates,
+                               MemberSearchResultCache searchResultCache,
+                               MemberSearchCoalescer searchCoalescer,
+                               MemberTeamReadModel memberTeamReadModel,
+                               MemberColumnarIndex columnarIndex,
+                               MemberBulkUpdater memberBulkUpdater) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberChangePublisher = memberChangePublisher;
+        this.searchQueryTemplates = searchQueryTemplates;
+        this.searchResultCache = searchResultCache;
+        this.searchCoalescer = searchCoalescer;
+        this.memberTeamReadModel = memberTeamReadModel;
+        this.columnarIndex = columnarIndex;
+        this.memberBulkUpdater = memberBulkUpdater;
     }
 
     public void save(Member member) {
@@ -104,9 +137,55 @@ public class MemberJpaRepository {
 
     /**
      * querydsl - 동적쿼리 (where 절 파라미터 사용)
+     * 조건 조합별로 미리 직렬화해 둔 템플릿에 값만 바인딩한다. (MemberSearchQueryTemplates)
+     * 결과 캐시를 켜면 같은 조건은 캐시에서 돌려준다. (MemberSearchResultCache)
+     * 같은 조건이 동시에 들어오면 한 번만 조회해서 나눠 쓴다. (MemberSearchCoalescer)
+     * 열 인덱스를 켜면 DB 대신 메모리에서 찾는다. (MemberColumnarIndex)
      */
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(
+        if (columnarIndex.canServe()) {
+            return columnarIndex.search(condition);
+        }
+        return searchCoalescer.search(condition,
+                () -> searchResultCache.get(condition, () -> searchQueryTemplates.search(condition)));
+    }
+
+    /**
+     * search 와 같은 결과를 DTO 없이 한 행씩 handler 에 넘긴다. (MemberTeamJsonWriter 로 응답에 바로 쓸 때)
+     * 열 인덱스나 결과 캐시가 켜져 있으면 거기서 꺼낸 DTO 의 값을 넘긴다.
+     * 같은 조건이 동시에 들어오면 DTO 가 아니라 조회한 컬럼 배열을 나눠 쓴다. (MemberSearchCoalescer)
+     * 트랜잭션은 조회(MemberSearchQueryTemplates)에만 걸어서, handler 가 응답을 쓰는 동안 커넥션을 잡고 있지 않는다.
+     */
+    public void searchRows(MemberSearchCondition condition, MemberTeamRowHandler handler) {
+        searchRows(condition, () -> { }, handler);
+    }
+
+    /**
+     * afterQuery 는 조회가 끝나고 첫 행을 넘기기 전에 부른다. (응답 쓰기를 뺀 조회 시간을 잴 때 - SearchLimiter.markQueryDone)
+     */
+    public void searchRows(MemberSearchCondition condition, Runnable afterQuery, MemberTeamRowHandler handler) {
+        if (columnarIndex.canServe() || searchResultCache.isEnabled()) {
+            List<MemberTeamDto> content = search(condition);
+            afterQuery.run();
+            for (MemberTeamDto dto : content) {
+                handler.row(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamname());
+            }
+            return;
+        }
+        List<Object[]> rows = searchCoalescer.rows(condition, () -> searchQueryTemplates.rows(condition));
+        afterQuery.run();
+        MemberSearchQueryTemplates.forEachRow(rows, handler);
+    }
+
+    /**
+     * querydsl - 동적쿼리 스트리밍 조회
+     * 결과 전체를 List 로 모으지 않고 한 건씩 consumer 에 넘긴다. (JDBC fetchSize 단위로 커서 이동)
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로, 결과 크기와 관계없이 메모리가 일정하다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        try (Stream<MemberTeamDto> stream = queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -120,8 +199,81 @@ public class MemberJpaRepository {
                         ageGoeEq(condition.getAgeGoe()),
                         ageLoeEq(condition.getAgeLoe())
                         )
-                .fetch();
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .stream()) {
+            stream.forEach(consumer);
+        }
+    }
+
+    /**
+     * 벌크 수정 - update(member) 는 영속성 컨텍스트와 hibernate 이벤트를 거치지 않으므로
+     * 실행 후 읽기 모델(member_team)을 맞추고 검색 캐시들에 변경을 직접 알린다.
+     * 읽기 모델이 켜져 있으면 where 에 걸린 회원의 id 범위만 맞춘다. (update 도 그 범위로 한정해서, 그 사이에 걸리게 된 행은 바꾸지 않는다)
+     * ex) bulkUpdate(update -> update.set(member.age, member.age.add(1)).where(member.age.lt(20)))
+     */
+    public long bulkUpdate(UnaryOperator<JPAUpdateClause> updater) {
+        if (!memberTeamReadModel.isEnabled()) {
+            long count = updater.apply(queryFactory.update(member)).execute();
+            memberChangePublisher.publishBulkChange();
+            return count;
+        }
 
+        WhereCapturingUpdateClause update = new WhereCapturingUpdateClause(em);
+        updater.apply(update);
+        Predicate where = update.getWhere();
+
+        Tuple range = queryFactory.select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+        Long minId = range != null ? range.get(member.id.min()) : null;
+        Long maxId = range != null ? range.get(member.id.max()) : null;
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        long count = update.execute(ExpressionUtils.allOf(where, member.id.between(minId, maxId)));
+        memberTeamReadModel.sync(minId, maxId + 1);
+        memberChangePublisher.publishBulkChange();
+        return count;
+    }
+
+    /**
+     * 벌크 수정 - em.clear() 없이 where 에 걸린 회원만 영속성 컨텍스트에서 다시 읽는다(REFRESH) / 떼어낸다(EVICT).
+     * 검색 캐시/읽기 모델도 걸린 행만 맞춘다. (MemberBulkUpdater)
+     * ex) bulkUpdate(member.age.lt(20), update -> update.set(member.age, member.age.add(1)), Mode.REFRESH)
+     */
+    public long bulkUpdate(Predicate where, UnaryOperator<JPAUpdateClause> setter, MemberBulkUpdater.Mode mode) {
+        return memberBulkUpdater.update(where, setter, mode);
+    }
+
+    /**
+     * where 를 바로 붙이지 않고 모아 두었다가, 실행할 때 id 범위 조건과 같이 붙인다.
+     */
+    private static class WhereCapturingUpdateClause extends JPAUpdateClause {
+
+        private final BooleanBuilder where = new BooleanBuilder();
+
+        WhereCapturingUpdateClause(EntityManager em) {
+            super(em, member);
+        }
+
+        @Override
+        public JPAUpdateClause where(Predicate... o) {
+            for (Predicate predicate : o) {
+                where.and(predicate);
+            }
+            return this;
+        }
+
+        Predicate getWhere() {
+            return where.getValue();
+        }
+
+        long execute(Predicate restricted) {
+            super.where(restricted);
+            return execute();
+        }
     }
 
     private BooleanExpression ageLoeEq(Integer ageLoe) {
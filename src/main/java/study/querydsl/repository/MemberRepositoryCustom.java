@@ -2,6 +2,8 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -11,4 +13,6 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> serarch(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pagable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pagable);
+    Slice<MemberTeamDto> searchSliceNoCount(MemberSearchCondition condition, Pageable pagable);
+    MemberCursorSlice searchSlice(MemberSearchCondition condition, String cursor, int size);
 }
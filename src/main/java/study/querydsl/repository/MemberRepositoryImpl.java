@@ -1,80 +1,174 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.cache.MemberCountCache;
+import study.querydsl.repository.cache.MemberSearchResultCache;
+import study.querydsl.repository.columnar.MemberColumnarIndex;
+import study.querydsl.repository.readmodel.MemberTeamReadModel;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
 import static study.querydsl.entity.QTeam.team;
 
+/**
+ * 검색 메서드는 읽기 전용 트랜잭션으로 실행한다. (Spring Data 는 커스텀 구현에 트랜잭션을 걸지 않는다)
+ */
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchQueryTemplates searchQueryTemplates;
+    private final MemberSearchResultCache searchResultCache;
+    private final MemberSearchCoalescer searchCoalescer;
+    private final ParallelCountExecutor parallelCountExecutor;
+    private final MemberTeamReadModel readModel;
+    private final MemberColumnarIndex columnarIndex;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em,
+                                MemberCountCache countCache,
+                                MemberSearchQueryTemplates searchQueryTemplates,
+                                MemberSearchResultCache searchResultCache,
+                                MemberSearchCoalescer searchCoalescer,
+                                ParallelCountExecutor parallelCountExecutor,
+                                MemberTeamReadModel readModel,
+                                MemberColumnarIndex columnarIndex) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.searchQueryTemplates = searchQueryTemplates;
+        this.searchResultCache = searchResultCache;
+        this.searchCoalescer = searchCoalescer;
+        this.parallelCountExecutor = parallelCountExecutor;
+        this.readModel = readModel;
+        this.columnarIndex = columnarIndex;
     }
 
     /**
      * querydsl - 동적쿼리 (where 절 파라미터 사용)
+     * 조건 조합별로 미리 직렬화해 둔 템플릿에 값만 바인딩한다. (MemberSearchQueryTemplates)
+     * 결과 캐시를 켜면 같은 조건은 캐시에서 돌려준다. (MemberSearchResultCache)
+     * 같은 조건이 동시에 들어오면 한 번만 조회해서 나눠 쓴다. (MemberSearchCoalescer)
+     * 열 인덱스를 켜면 DB 대신 메모리에서 찾는다. (MemberColumnarIndex)
      */
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> serarch(MemberSearchCondition condition) {
-        return queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.teamname
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageGoeEq(condition.getAgeGoe()),
-                        ageLoeEq(condition.getAgeLoe())
-                )
-                .fetch();
-
+        if (columnarIndex.canServe()) {
+            return columnarIndex.search(condition);
+        }
+        return searchCoalescer.search(condition,
+                () -> searchResultCache.get(condition, () -> searchQueryTemplates.search(condition)));
     }
 
     /**
      * querydsl - 동적쿼리 (where 절 파라미터 사용)
      * paging : 데이터 조회와 카운트 쿼리를 나눠서 사용
+     * 카운트는 켜져 있으면 데이터 조회와 동시에 실행한다. (ParallelCountExecutor)
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pagable) {
-        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.teamname
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamnameEq(condition.getTeamname()),
-                        ageLoeEq(condition.getAgeLoe()),
-                        ageGoeEq(condition.getAgeGoe())
-                )
+        if (columnarIndex.canServe()) {
+            return columnarIndex.searchPage(condition, pagable);
+        }
+
+        JPAQuery<MemberTeamDto> contentQuery = contentQuery(condition)
+                .offset(pagable.getOffset())
+                .limit(pagable.getPageSize());
+
+        // 쓰기 트랜잭션에서는 데이터 쿼리가 아직 flush 안 된 변경을 내보내기(무효화) 전이라 캐시를 미리 보지 않는다.
+        if (isReadWriteTransaction()) {
+            return parallelCountExecutor.getPage(contentQuery::fetch, pagable,
+                    () -> countCache.get(condition, () -> countQuery(condition).fetchOne()));
+        }
+
+        // 캐시된 건수가 있으면 카운트 쿼리를 (병렬로도) 보낼 필요가 없다.
+        Long cachedTotal = countCache.getIfPresent(condition);
+        if (cachedTotal != null) {
+            return PageableExecutionUtils.getPage(contentQuery.fetch(), pagable, () -> cachedTotal);
+        }
+        return parallelCountExecutor.getPage(contentQuery::fetch, pagable,
+                () -> countCache.load(condition, () -> countQuery(condition).fetchOne()));
+        //return new PageImpl<>(content, pagable, count);
+    }
+
+    /**
+     * querydsl - 동적쿼리 (where 절 파라미터 사용)
+     * paging : 데이터 조회와 카운트 쿼리를 함께 사용
+     * (fetchResults 는 deprecated 이고 내부적으로 카운트 쿼리를 따로 날리므로, 카운트 캐시를 쓰도록 나눠서 조회)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pagable) {
+        if (columnarIndex.canServe()) {
+            return columnarIndex.searchPage(condition, pagable);
+        }
+
+        List<MemberTeamDto> content = contentQuery(condition)
                 .offset(pagable.getOffset())
                 .limit(pagable.getPageSize())
                 .fetch();
 
-        JPAQuery<MemberTeamDto> countQuery = queryFactory.select(new QMemberTeamDto(
+        long count = countCache.get(condition, () -> countQuery(condition).fetchOne());
+
+        return new PageImpl<>(content, pagable, count);
+    }
+
+    /**
+     * querydsl - 동적쿼리 (where 절 파라미터 사용)
+     * paging : 카운트 쿼리 없이 size + 1 건을 조회해서 다음 페이지 존재 여부만 판단한다. (무한 스크롤용)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSliceNoCount(MemberSearchCondition condition, Pageable pagable) {
+        if (columnarIndex.canServe()) {
+            Page<MemberTeamDto> page = columnarIndex.searchPage(condition, pagable);
+            return new SliceImpl<>(page.getContent(), pagable, page.hasNext());
+        }
+
+        List<MemberTeamDto> content = contentQuery(condition)
+                .offset(pagable.getOffset())
+                .limit(pagable.getPageSize() + 1L)
+                .fetch();
+
+        boolean hasNext = content.size() > pagable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pagable.getPageSize());
+        }
+        return new SliceImpl<>(content, pagable, hasNext);
+    }
+
+    /**
+     * querydsl - 동적쿼리 (where 절 파라미터 사용)
+     * paging : offset 대신 커서(member.id) 이후부터 조회 (keyset / seek 방식)
+     * size + 1 건을 조회해서 다음 페이지 존재 여부를 판단한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MemberCursorSlice searchSlice(MemberSearchCondition condition, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+
+        List<MemberTeamDto> content = queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -83,25 +177,44 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
+                .where(memberIdGt(MemberCursor.decode(cursor)),
+                        usernameEq(condition.getUsername()),
                         teamnameEq(condition.getTeamname()),
                         ageLoeEq(condition.getAgeLoe()),
                         ageGoeEq(condition.getAgeGoe())
                 )
-                .offset(pagable.getOffset())
-                .limit(pagable.getPageSize());
+                .orderBy(member.id.asc())
+                .limit(size + 1)
+                .fetch();
 
-        return PageableExecutionUtils.getPage(content, pagable, countQuery::fetchCount);
-        //return new PageImpl<>(content, pagable, count);
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        String nextCursor = hasNext ? MemberCursor.encode(content.get(size - 1).getMemberId()) : null;
+
+        return new MemberCursorSlice(content, nextCursor, hasNext);
     }
 
     /**
-     * querydsl - 동적쿼리 (where 절 파라미터 사용)
-     * paging : 데이터 조회와 카운트 쿼리를 함께 사용
+     * 페이징 검색의 데이터 쿼리
+     * 읽기 모델(MemberTeamReadModel)이 켜져 있으면 조인 없이 member_team 을 조회한다.
+     * offset 으로 자르므로 member_id 순으로 정렬한다. (정렬이 없으면 실행계획(인덱스)에 따라 페이지 사이에 행이 겹치거나 빠진다)
      */
-    @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pagable) {
-        QueryResults<MemberTeamDto> result = queryFactory.select(new QMemberTeamDto(
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        if (readModel.isEnabled()) {
+            return queryFactory.select(new QMemberTeamDto(
+                            memberTeamView.memberId,
+                            memberTeamView.username,
+                            memberTeamView.age,
+                            memberTeamView.teamId,
+                            memberTeamView.teamname
+                    ))
+                    .from(memberTeamView)
+                    .where(readModelConditions(condition))
+                    .orderBy(memberTeamView.memberId.asc());
+        }
+        return queryFactory.select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -115,14 +228,52 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageLoeEq(condition.getAgeLoe()),
                         ageGoeEq(condition.getAgeGoe())
                 )
-                .offset(pagable.getOffset())
-                .limit(pagable.getPageSize())
-                .fetchResults();
+                .orderBy(member.id.asc());
+    }
 
-        List<MemberTeamDto> content = result.getResults();
-        Long count = result.getTotal();
+    /**
+     * 카운트 전용 쿼리
+     * member.count() 만 조회하고, 팀 조건이 없으면 team 조인을 생략한다.
+     * (member -> team 은 left join 이라 조인 여부가 건수에 영향을 주지 않는다)
+     */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        if (readModel.isEnabled()) {
+            return queryFactory.select(memberTeamView.count())
+                    .from(memberTeamView)
+                    .where(readModelConditions(condition));
+        }
 
-        return new PageImpl<>(content, pagable, count);
+        JPAQuery<Long> query = queryFactory.select(member.count())
+                .from(member);
+
+        BooleanExpression teamCondition = teamnameEq(condition.getTeamname());
+        if (teamCondition != null) {
+            query.leftJoin(member.team, team);
+        }
+
+        return query.where(usernameEq(condition.getUsername()),
+                teamCondition,
+                ageLoeEq(condition.getAgeLoe()),
+                ageGoeEq(condition.getAgeGoe())
+        );
+    }
+
+    private static boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static Predicate[] readModelConditions(MemberSearchCondition condition) {
+        return new Predicate[]{
+                hasText(condition.getUsername()) ? memberTeamView.username.eq(condition.getUsername()) : null,
+                hasText(condition.getTeamname()) ? memberTeamView.teamname.eq(condition.getTeamname()) : null,
+                condition.getAgeLoe() != null ? memberTeamView.age.loe(condition.getAgeLoe()) : null,
+                condition.getAgeGoe() != null ? memberTeamView.age.goe(condition.getAgeGoe()) : null
+        };
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
     }
 
     private BooleanExpression ageLoeEq(Integer ageLoe) {
@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색 동시 실행 합치기 (single-flight)
+ * 정규화된 검색조건이 같은 요청이 동시에 들어오면 먼저 온 요청만 조회하고, 나머지는 그 결과를 기다려서 같이 쓴다.
+ *
+ * - 기다리는 시간은 wait-timeout 까지 - 넘으면 직접 조회한다.
+ * - 먼저 온 요청의 조회가 실패하면 기다리던 요청들도 같은 예외로 실패한다.
+ * - 쓰기 트랜잭션 안의 검색은 합치지 않는다. (아직 커밋되지 않은 변경이 다른 요청에 보이거나, 자기 변경이 안 보일 수 있다)
+ * - 결과 List 는 여러 요청이 공유하므로 수정할 수 없는 List 로 돌려준다. (복사하지 않고 감싸기만 한다)
+ * - DTO 검색(search)과 컬럼 배열 검색(rows, JSON 으로 바로 쓰는 경로)은 따로 합친다.
+ */
+@Slf4j
+@Component
+public class MemberSearchCoalescer {
+
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+    private final ConcurrentMap<MemberSearchCondition, CompletableFuture<List<MemberTeamDto>>> dtoFlights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MemberSearchCondition, CompletableFuture<List<Object[]>>> rowFlights = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public MemberSearchCoalescer(@Value("${member.search.coalescing.enabled:true}") boolean enabled,
+                                 @Value("${member.search.coalescing.wait-timeout:5s}") Duration waitTimeout) {
+        this.enabled = enabled;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 켜져 있고, 쓰기 트랜잭션 밖이면 true
+     */
+    public boolean canCoalesce() {
+        return enabled && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * 같은 조건의 조회가 진행 중이면 그 결과를, 아니면 loader 로 조회한 결과를 돌려준다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+        return coalesce(dtoFlights, condition, loader);
+    }
+
+    /**
+     * search 와 같지만 DTO 대신 조회한 컬럼 배열(MemberSearchQueryTemplates.rows)을 나눠 쓴다.
+     */
+    public List<Object[]> rows(MemberSearchCondition condition, Supplier<List<Object[]>> loader) {
+        return coalesce(rowFlights, condition, loader);
+    }
+
+    public Stats stats() {
+        return new Stats(executions.sum(), coalesced.sum(), timeouts.sum(), failures.sum(),
+                dtoFlights.size() + rowFlights.size());
+    }
+
+    private <T> List<T> coalesce(ConcurrentMap<MemberSearchCondition, CompletableFuture<List<T>>> flights,
+                                 MemberSearchCondition condition, Supplier<List<T>> loader) {
+        if (!canCoalesce()) {
+            return loader.get();
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        CompletableFuture<List<T>> mine = new CompletableFuture<>();
+        CompletableFuture<List<T>> running = flights.putIfAbsent(key, mine);
+        if (running == null) {
+            return execute(flights, key, mine, loader);
+        }
+
+        coalesced.increment();
+        try {
+            return running.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.debug("coalesced search timed out, querying directly: {}", key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for coalesced search", e);
+        }
+    }
+
+    private <T> List<T> execute(ConcurrentMap<MemberSearchCondition, CompletableFuture<List<T>>> flights,
+                                MemberSearchCondition key, CompletableFuture<List<T>> mine, Supplier<List<T>> loader) {
+        executions.increment();
+        try {
+            List<T> result = Collections.unmodifiableList(loader.get());
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // 끝난 조회에 새 요청이 붙지 않도록 결과를 넘긴 직후 뺀다.
+            flights.remove(key, mine);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException("coalesced search failed", cause);
+    }
+
+    /**
+     * executions : 실제로 조회한 횟수, coalesced : 다른 요청의 결과를 기다린 횟수
+     */
+    @Getter
+    @ToString
+    public static class Stats {
+        private final long executions;
+        private final long coalesced;
+        private final long timeouts;
+        private final long failures;
+        private final int inFlight;
+
+        Stats(long executions, long coalesced, long timeouts, long failures, int inFlight) {
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.timeouts = timeouts;
+            this.failures = failures;
+            this.inFlight = inFlight;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.readmodel.MemberTeamReadModel;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색조건 조합별로 미리 만들어둔 쿼리 템플릿
+ * 선택 조건이 4개(username, teamname, ageGoe, ageLoe)라 where 절 모양은 16가지 뿐이다.
+ * 모양마다 querydsl 표현식을 Param 으로 한 번만 만들어 JPQL 로 직렬화해 두고,
+ * 요청마다 값만 바인딩한다. 같은 JPQL 문자열이므로 hibernate 도 파싱 결과(query plan cache)를 재사용한다.
+ * 읽기 모델(MemberTeamReadModel)이 켜져 있으면 member_team 을 조회하는 템플릿을 쓴다.
+ * 읽기 전용 트랜잭션으로 조회한다. (datasource-routing 이 켜져 있으면 replica 로 간다)
+ */
+@Component
+public class MemberSearchQueryTemplates {
+
+    private static final int USERNAME = 1;
+    private static final int TEAMNAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int SHAPES = 1 << 4;
+
+    private final Param<String> usernameParam = new Param<>(String.class, "username");
+    private final Param<String> teamnameParam = new Param<>(String.class, "teamname");
+    private final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+    private final QMemberTeamDto projection = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.teamname
+    );
+
+    private final QMemberTeamDto readModelProjection = new QMemberTeamDto(
+            memberTeamView.memberId,
+            memberTeamView.username,
+            memberTeamView.age,
+            memberTeamView.teamId,
+            memberTeamView.teamname
+    );
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberTeamReadModel readModel;
+    private final AtomicReferenceArray<String> jpqlByShape = new AtomicReferenceArray<>(SHAPES);
+    private final AtomicReferenceArray<String> readModelJpqlByShape = new AtomicReferenceArray<>(SHAPES);
+
+    public MemberSearchQueryTemplates(EntityManager em, MemberTeamReadModel readModel) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.readModel = readModel;
+    }
+
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        boolean useReadModel = readModel.isEnabled();
+        List<Object[]> rows = fetchRows(condition, useReadModel);
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        QMemberTeamDto rowProjection = useReadModel ? readModelProjection : projection;
+        for (Object[] row : rows) {
+            result.add(rowProjection.newInstance(row));
+        }
+        return result;
+    }
+
+    /**
+     * search 와 같은 행을 DTO 로 만들지 않고 컬럼 배열 그대로 돌려준다.
+     * 두 템플릿 모두 memberId, username, age, teamId, teamname 순서로 조회한다. (forEachRow 로 꺼낸다)
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> rows(MemberSearchCondition condition) {
+        return fetchRows(condition, readModel.isEnabled());
+    }
+
+    public static void forEachRow(List<Object[]> rows, MemberTeamRowHandler handler) {
+        for (Object[] columns : rows) {
+            handler.row((Long) columns[0], (String) columns[1], (Integer) columns[2], (Long) columns[3], (String) columns[4]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> fetchRows(MemberSearchCondition condition, boolean useReadModel) {
+        int shape = shapeOf(condition);
+        Query query = em.createQuery(useReadModel ? readModelJpql(shape) : jpql(shape));
+
+        // 파라미터 위치는 템플릿의 where 절 순서와 같다.
+        int position = 1;
+        if ((shape & USERNAME) != 0) {
+            query.setParameter(position++, condition.getUsername());
+        }
+        if ((shape & TEAMNAME) != 0) {
+            query.setParameter(position++, condition.getTeamname());
+        }
+        if ((shape & AGE_GOE) != 0) {
+            query.setParameter(position++, condition.getAgeGoe());
+        }
+        if ((shape & AGE_LOE) != 0) {
+            query.setParameter(position, condition.getAgeLoe());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 조건 조합 -> 0 ~ 15
+     */
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamname())) {
+            shape |= TEAMNAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    String jpql(int shape) {
+        String jpql = jpqlByShape.get(shape);
+        if (jpql == null) {
+            // 동시에 만들어져도 결과는 같으므로 먼저 넣은 쪽을 쓴다.
+            jpqlByShape.compareAndSet(shape, null, compile(shape));
+            jpql = jpqlByShape.get(shape);
+        }
+        return jpql;
+    }
+
+    String readModelJpql(int shape) {
+        String jpql = readModelJpqlByShape.get(shape);
+        if (jpql == null) {
+            readModelJpqlByShape.compareAndSet(shape, null, compileReadModel(shape));
+            jpql = readModelJpqlByShape.get(shape);
+        }
+        return jpql;
+    }
+
+    private String compile(int shape) {
+        return checkParameters(shape, queryFactory.select(projection)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(param(shape, USERNAME, member.username.eq(usernameParam)),
+                        param(shape, TEAMNAME, team.teamname.eq(teamnameParam)),
+                        param(shape, AGE_GOE, member.age.goe(ageGoeParam)),
+                        param(shape, AGE_LOE, member.age.loe(ageLoeParam))
+                )
+                .toString());
+    }
+
+    /**
+     * 읽기 모델 - 조인 없이 member_team 한 테이블만 조회
+     */
+    private String compileReadModel(int shape) {
+        return checkParameters(shape, queryFactory.select(readModelProjection)
+                .from(memberTeamView)
+                .where(param(shape, USERNAME, memberTeamView.username.eq(usernameParam)),
+                        param(shape, TEAMNAME, memberTeamView.teamname.eq(teamnameParam)),
+                        param(shape, AGE_GOE, memberTeamView.age.goe(ageGoeParam)),
+                        param(shape, AGE_LOE, memberTeamView.age.loe(ageLoeParam))
+                )
+                .toString());
+    }
+
+    private static String checkParameters(int shape, String jpql) {
+        // querydsl 은 파라미터를 나온 순서대로 ?1, ?2 ... 로 직렬화한다.
+        int expected = Integer.bitCount(shape);
+        if (expected > 0 && (!jpql.contains("?" + expected) || jpql.contains("?" + (expected + 1)))) {
+            throw new IllegalStateException("unexpected parameter layout for shape " + shape + ": " + jpql);
+        }
+        return jpql;
+    }
+
+    private static BooleanExpression param(int shape, int flag, BooleanExpression predicate) {
+        return (shape & flag) != 0 ? predicate : null;
+    }
+}
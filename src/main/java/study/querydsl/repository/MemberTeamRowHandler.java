@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+/**
+ * 검색 결과 한 행 (MemberTeamDto 와 같은 컬럼) - DTO 를 만들지 않고 값으로 넘겨받는다.
+ */
+@FunctionalInterface
+public interface MemberTeamRowHandler {
+
+    void row(Long memberId, String username, int age, Long teamId, String teamname);
+}
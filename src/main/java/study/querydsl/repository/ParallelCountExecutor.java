@@ -0,0 +1,148 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 조회의 카운트 쿼리를 데이터 조회와 동시에 실행한다. - 기본은 꺼져 있음 (member.search.parallel-count.enabled)
+ * 카운트는 별도 스레드에서 읽기 전용 트랜잭션(= 별도 커넥션)으로 실행하므로 페이지 응답시간이 max(데이터, 카운트)에 가까워진다.
+ *
+ * - 데이터를 받아보니 PageableExecutionUtils 가 전체 건수를 알 수 있으면 카운트는 취소한다.
+ * - 호출한 쪽이 쓰기 트랜잭션 안이면, 아직 커밋 안 된 변경이 다른 커넥션에서 안 보이므로 순서대로 실행한다.
+ * - 스레드/큐가 가득 차도 순서대로 실행한다.
+ */
+@Component
+public class ParallelCountExecutor {
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicLong parallelCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong sequentialCount = new AtomicLong();
+
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${member.search.parallel-count.enabled:false}") boolean enabled,
+                                 @Value("${member.search.parallel-count.threads:4}") int threads,
+                                 @Value("${member.search.parallel-count.queue-capacity:100}") int queueCapacity,
+                                 @Value("${member.search.parallel-count.timeout:10s}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeoutMillis = timeout.toMillis();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-count-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> Page<T> getPage(Supplier<List<T>> content, Pageable pageable, LongSupplier count) {
+        if (!canRunInParallel()) {
+            sequentialCount.incrementAndGet();
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+
+        Future<Long> countFuture;
+        try {
+            countFuture = executor.submit(() -> readOnlyTransaction.execute(status -> count.getAsLong()));
+        } catch (RejectedExecutionException e) {
+            sequentialCount.incrementAndGet();
+            return PageableExecutionUtils.getPage(content.get(), pageable, count);
+        }
+        parallelCount.incrementAndGet();
+
+        AtomicBoolean countUsed = new AtomicBoolean();
+        try {
+            return PageableExecutionUtils.getPage(content.get(), pageable, () -> {
+                countUsed.set(true);
+                return await(countFuture);
+            });
+        } finally {
+            if (!countUsed.get() && countFuture.cancel(true)) {
+                cancelledCount.incrementAndGet();
+            }
+        }
+    }
+
+    public long getParallelCount() {
+        return parallelCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public long getSequentialCount() {
+        return sequentialCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean canRunInParallel() {
+        if (!enabled) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private long await(Future<Long> countFuture) {
+        try {
+            return countFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            countFuture.cancel(true);
+            throw new QueryTimeoutException("count query did not finish in " + timeoutMillis + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            countFuture.cancel(true);
+            throw new IllegalStateException("interrupted while waiting for count query", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamSlice;
+
+import javax.persistence.EntityManager;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 목록 + 팀별 회원 (2단계 조회)
+ *
+ * select t from Team t join fetch t.members 에 페이징을 걸면 hibernate 가 팀 x 회원 전체를 읽어서 메모리에서 자른다.
+ * 대신
+ * 1. 팀 id 만 페이징 (offset 또는 keyset)
+ * 2. 그 팀들의 회원을 IN 쿼리 한 번으로 - 팀마다 앞에서 membersPerTeam 명까지만 (row_number)
+ * 3. 팀별 전체 회원 수를 group by 한 번으로
+ * 읽는 행 수가 size x membersPerTeam 을 넘지 않으므로 회원이 수천 명인 팀이 있어도 메모리/지연이 일정하다.
+ */
+@Repository
+public class TeamQueryRepository {
+
+    private static final String MEMBERS_PER_TEAM = "select member_id, username, age, team_id from ("
+            + " select m.member_id, m.username, m.age, m.team_id,"
+            + " row_number() over (partition by m.team_id order by m.member_id) as rn"
+            + " from member m where m.team_id in (:teamIds)) ranked"
+            + " where rn <= :limit"
+            + " order by team_id, member_id";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public TeamQueryRepository(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    /**
+     * @param cursor         keyset - 이전 응답의 nextCursor (없으면 offset 으로)
+     * @param offset         cursor 가 없을 때만 쓴다.
+     * @param size           팀 수
+     * @param membersPerTeam 팀마다 가져올 회원 수 (0 이면 회원은 읽지 않고 수만 센다)
+     * @throws IllegalArgumentException 잘못된 커서
+     */
+    @Transactional(readOnly = true)
+    public TeamSlice findTeams(String cursor, long offset, int size, int membersPerTeam) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        if (membersPerTeam < 0) {
+            throw new IllegalArgumentException("membersPerTeam must not be negative: " + membersPerTeam);
+        }
+
+        Long lastTeamId = MemberCursor.decode(cursor);
+        JPAQuery<Tuple> teamQuery = queryFactory.select(team.id, team.teamname)
+                .from(team)
+                .where(teamIdGt(lastTeamId))
+                .orderBy(team.id.asc())
+                .limit(size + 1);
+        if (lastTeamId == null) {
+            teamQuery.offset(offset);
+        }
+        List<Tuple> teams = teamQuery.fetch();
+
+        boolean hasNext = teams.size() > size;
+        if (hasNext) {
+            teams = teams.subList(0, size);
+        }
+
+        Map<Long, TeamMembersDto> content = new LinkedHashMap<>();
+        for (Tuple row : teams) {
+            content.put(row.get(team.id), new TeamMembersDto(row.get(team.id), row.get(team.teamname)));
+        }
+        if (!content.isEmpty()) {
+            fetchMemberCounts(content);
+            if (membersPerTeam > 0) {
+                fetchMembers(content, membersPerTeam);
+            }
+        }
+
+        // offset 으로 시작했어도 다음 페이지부터는 keyset 으로 이어갈 수 있다.
+        String nextCursor = hasNext ? MemberCursor.encode(teams.get(size - 1).get(team.id)) : null;
+        return new TeamSlice(new ArrayList<>(content.values()), nextCursor, hasNext);
+    }
+
+    private void fetchMemberCounts(Map<Long, TeamMembersDto> content) {
+        queryFactory.select(member.team.id, member.count())
+                .from(member)
+                .where(member.team.id.in(content.keySet()))
+                .groupBy(member.team.id)
+                .fetch()
+                .forEach(row -> content.get(row.get(member.team.id)).setMemberCount(row.get(member.count())));
+    }
+
+    /**
+     * JPQL 에는 윈도우 함수가 없어서 native 쿼리로 팀마다 앞에서 limit 명만 읽는다.
+     */
+    @SuppressWarnings("unchecked")
+    private void fetchMembers(Map<Long, TeamMembersDto> content, int membersPerTeam) {
+        List<Object[]> rows = em.createNativeQuery(MEMBERS_PER_TEAM)
+                .setParameter("teamIds", content.keySet())
+                .setParameter("limit", membersPerTeam)
+                .getResultList();
+        for (Object[] row : rows) {
+            Long teamId = toLong(row[3]);
+            content.get(teamId).getMembers()
+                    .add(new TeamMemberDto(toLong(row[0]), (String) row[1], ((Number) row[2]).intValue()));
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof BigInteger ? ((BigInteger) value).longValue() : ((Number) value).longValue();
+    }
+
+    private BooleanExpression teamIdGt(Long lastTeamId) {
+        return lastTeamId != null ? team.id.gt(lastTeamId) : null;
+    }
+}
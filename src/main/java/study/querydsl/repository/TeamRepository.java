@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    /**
+     * 팀명 조회 - 쿼리 캐시(team-query region)에 team_id 목록을, 2차 캐시(team region)에 엔티티를 둔다.
+     * team 테이블이 바뀌면(벌크 연산 포함) hibernate 가 이 쿼리 캐시를 버린다.
+     */
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = "team-query")
+    })
+    List<Team> findByTeamname(String teamname);
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 캐시 통계 스냅샷
+ */
+@Getter
+@ToString
+public class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long invalidationCount;
+    private final int size;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long invalidationCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+    }
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+}
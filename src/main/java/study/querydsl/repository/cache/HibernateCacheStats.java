@@ -0,0 +1,45 @@
+package study.querydsl.repository.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.stat.CacheRegionStatistics;
+
+/**
+ * hibernate 2차 캐시/쿼리 캐시 region 통계 스냅샷
+ */
+@Getter
+@ToString
+public class HibernateCacheStats {
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    /**
+     * 알 수 없으면 -1
+     */
+    private final long size;
+
+    public HibernateCacheStats(String region, long hitCount, long missCount, long putCount, long size) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.size = size;
+    }
+
+    /**
+     * region 이 없으면(2차 캐시를 끈 경우 등) 모두 0
+     */
+    static HibernateCacheStats of(String region, CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            return new HibernateCacheStats(region, 0, 0, 0, -1);
+        }
+        return new HibernateCacheStats(region, statistics.getHitCount(), statistics.getMissCount(),
+                statistics.getPutCount(), statistics.getElementCountInMemory());
+    }
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.event.MemberChangeListener;
+import study.querydsl.repository.event.MemberSnapshot;
+
+import java.time.Duration;
+
+/**
+ * 페이징 검색의 전체 건수(total) 캐시
+ * 정규화된 검색조건을 키로 하고, 크기 제한(LRU)과 TTL 을 둔다.
+ * 회원/팀 변경 시 그 행이 걸릴 수 있는 조건의 항목만 지운다.
+ */
+@Component
+public class MemberCountCache extends SearchConditionCache<Long> implements MemberChangeListener {
+
+    public MemberCountCache(@Value("${member.search.count-cache.enabled:true}") boolean enabled,
+                            @Value("${member.search.count-cache.max-size:1000}") int maxSize,
+                            @Value("${member.search.count-cache.ttl:60s}") Duration ttl) {
+        super(enabled, maxSize, Long.MAX_VALUE, ttl);
+    }
+
+    @Override
+    protected long weigh(Long value) {
+        return 1;
+    }
+
+    @Override
+    public void onMemberChanged(MemberSnapshot before, MemberSnapshot after) {
+        invalidateIf((condition, count) -> (before != null && before.matches(condition))
+                || (after != null && after.matches(condition)));
+    }
+
+    @Override
+    public void onTeamChanged(String beforeTeamname, String afterTeamname) {
+        invalidateIf((condition, count) -> condition.getTeamname() != null
+                && (condition.getTeamname().equals(beforeTeamname) || condition.getTeamname().equals(afterTeamname)));
+    }
+
+    @Override
+    public void onBulkChange() {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.event.MemberChangeListener;
+import study.querydsl.repository.event.MemberSnapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과(List<MemberTeamDto>) 캐시 - 기본은 꺼져 있음 (member.search.result-cache.enabled)
+ * 항목 수와 전체 행 수(max-weight)로 크기를 제한한다.
+ *
+ * 무효화
+ * - 회원 변경 : 변경 전/후 값이 검색조건에 걸리는 항목만
+ * - 팀명 변경 : 해당 팀명 조건이거나, 결과에 그 팀명이 들어있는 항목만
+ * - 벌크 연산 : 전체
+ *
+ * 캐시된 List 는 여러 요청이 공유하므로 수정할 수 없는 List 로 돌려준다.
+ * 쓰기 트랜잭션 안의 검색은 캐시를 거치지 않는다. (SearchConditionCache)
+ */
+@Component
+public class MemberSearchResultCache extends SearchConditionCache<List<MemberTeamDto>> implements MemberChangeListener {
+
+    public MemberSearchResultCache(@Value("${member.search.result-cache.enabled:false}") boolean enabled,
+                                   @Value("${member.search.result-cache.max-size:500}") int maxSize,
+                                   @Value("${member.search.result-cache.max-weight:100000}") long maxWeight,
+                                   @Value("${member.search.result-cache.ttl:30s}") Duration ttl) {
+        super(enabled, maxSize, maxWeight, ttl);
+    }
+
+    @Override
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+        if (!isEnabled()) {
+            return loader.get();
+        }
+        return super.get(condition, () -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    @Override
+    protected long weigh(List<MemberTeamDto> value) {
+        return Math.max(1, value.size());
+    }
+
+    @Override
+    public void onMemberChanged(MemberSnapshot before, MemberSnapshot after) {
+        invalidateIf((condition, rows) -> (before != null && before.matches(condition))
+                || (after != null && after.matches(condition)));
+    }
+
+    @Override
+    public void onTeamChanged(String beforeTeamname, String afterTeamname) {
+        invalidateIf((condition, rows) -> isTeamname(condition.getTeamname(), beforeTeamname, afterTeamname)
+                || rows.stream().anyMatch(row -> isTeamname(row.getTeamname(), beforeTeamname, afterTeamname)));
+    }
+
+    @Override
+    public void onBulkChange() {
+        invalidateAll();
+    }
+
+    private static boolean isTeamname(String teamname, String beforeTeamname, String afterTeamname) {
+        return teamname != null && (teamname.equals(beforeTeamname) || teamname.equals(afterTeamname));
+    }
+}
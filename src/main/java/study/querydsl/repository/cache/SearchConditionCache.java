@@ -0,0 +1,199 @@
+package study.querydsl.repository.cache;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * 정규화된 검색조건을 키로 하는 캐시 공통 부분
+ * 항목 수(LRU)와 무게(weigh 합계) 두 가지로 크기를 제한하고, TTL 이 지나면 다시 조회한다.
+ * 쓰기 트랜잭션 안의 get / load 는 캐시를 보지도 채우지도 않고 바로 조회한다.
+ * (그 결과에는 커밋 안 된 변경이 들어 있을 수 있다 - 다른 스레드가 보면 dirty read, 롤백되면 없던 행)
+ */
+public abstract class SearchConditionCache<V> {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    /**
+     * 접근 순서로 정렬 -> 앞쪽이 가장 오래 안 쓴 항목
+     */
+    private final LinkedHashMap<MemberSearchCondition, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    /**
+     * 무효화가 일어날 때마다 증가.
+     * 조회 중에 무효화가 끼어들면 그 결과는 캐시에 넣지 않는다.
+     */
+    private long generation;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    protected SearchConditionCache(boolean enabled, int maxSize, long maxWeight, Duration ttl) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * 값의 무게 (ex. 결과 행 수)
+     */
+    protected abstract long weigh(V value);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시된 값을 돌려주고, 없거나 만료되었으면 loader 로 조회해서 저장한다.
+     */
+    public V get(MemberSearchCondition condition, Supplier<V> loader) {
+        if (!enabled || isReadWriteTransaction()) {
+            return loader.get();
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                hitCount++;
+                return entry.value;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            missCount++;
+            loadGeneration = generation;
+        }
+        return loadAndStore(key, loadGeneration, loader);
+    }
+
+    /**
+     * 캐시를 보지 않고 loader 로 조회해서 저장한다. (getIfPresent 가 null 이었을 때 - 미스는 이미 센 것)
+     */
+    public V load(MemberSearchCondition condition, Supplier<V> loader) {
+        if (!enabled || isReadWriteTransaction()) {
+            return loader.get();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        return loadAndStore(condition.normalized(), loadGeneration, loader);
+    }
+
+    private V loadAndStore(MemberSearchCondition key, long loadGeneration, Supplier<V> loader) {
+        V value = loader.get();
+
+        long weight = weigh(value);
+        synchronized (this) {
+            if (loadGeneration == generation && weight <= maxWeight) {
+                Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.nanoTime() + ttlNanos));
+                if (previous != null) {
+                    totalWeight -= previous.weight;
+                }
+                totalWeight += weight;
+                evictIfNeeded();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 캐시된 값이 있으면 돌려주고, 없거나 만료되었으면 null (조회는 하지 않는다)
+     * null 이면 미스로 센다. 이어서 조회할 때는 get 이 아니라 load 를 써야 두 번 세지 않는다.
+     */
+    public V getIfPresent(MemberSearchCondition condition) {
+        if (!enabled) {
+            return null;
+        }
+
+        MemberSearchCondition key = condition.normalized();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null || entry.isExpired(System.nanoTime())) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry.value;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidationCount += entries.size();
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * affected 가 true 인 항목만 지운다.
+     */
+    protected synchronized void invalidateIf(BiPredicate<MemberSearchCondition, V> affected) {
+        generation++;
+        Iterator<Map.Entry<MemberSearchCondition, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<MemberSearchCondition, Entry<V>> next = it.next();
+            if (affected.test(next.getKey(), next.getValue().value)) {
+                totalWeight -= next.getValue().weight;
+                it.remove();
+                invalidationCount++;
+            }
+        }
+    }
+
+    private static boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, invalidationCount, entries.size());
+    }
+
+    private void remove(MemberSearchCondition key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while ((entries.size() > maxSize || totalWeight > maxWeight) && it.hasNext()) {
+            totalWeight -= it.next().weight;
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
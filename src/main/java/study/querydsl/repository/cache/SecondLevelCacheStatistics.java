@@ -0,0 +1,64 @@
+package study.querydsl.repository.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * hibernate 통계 중 2차 캐시 관련 값 (hibernate.generate_statistics 가 켜져 있어야 쌓인다)
+ */
+@Component
+public class SecondLevelCacheStatistics {
+
+    public static final String TEAM_REGION = "team";
+    public static final String TEAM_QUERY_REGION = "team-query";
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheStatistics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public boolean isEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    public Map<String, HibernateCacheStats> regions() {
+        Map<String, HibernateCacheStats> regions = new LinkedHashMap<>();
+        regions.put(TEAM_REGION, HibernateCacheStats.of(TEAM_REGION, domainRegion(TEAM_REGION)));
+        regions.put(TEAM_QUERY_REGION, HibernateCacheStats.of(TEAM_QUERY_REGION,
+                statistics.getQueryRegionStatistics(TEAM_QUERY_REGION)));
+        return regions;
+    }
+
+    /**
+     * DB 로 보낸 statement 수 - 캐시로 줄어든 왕복 수를 비교할 때 쓴다.
+     */
+    public long getPrepareStatementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public long getEntityLoadCount() {
+        return statistics.getEntityLoadCount();
+    }
+
+    public void clear() {
+        statistics.clear();
+    }
+
+    /**
+     * 2차 캐시를 끄면 region 이 없어서 IllegalArgumentException 이 난다.
+     */
+    private CacheRegionStatistics domainRegion(String region) {
+        try {
+            return statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
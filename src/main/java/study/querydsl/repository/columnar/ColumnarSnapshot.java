@@ -0,0 +1,261 @@
+package study.querydsl.repository.columnar;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원을 열(column) 단위 배열로 들고 있는 불변 스냅샷 - 행 번호는 id 오름차순
+ *
+ * - ages : int[] 그대로
+ * - 팀 : 행마다 팀 코드(int)만 두고, 코드 -> teamId 사전을 따로 둔다. (팀명은 MemberColumnarIndex 의 팀 사전)
+ * - username : 값 -> 행 번호들 해시 인덱스
+ * - age 범위 : 나이순으로 정렬한 행 번호(ageOrder)에서 이진 탐색
+ */
+final class ColumnarSnapshot {
+
+    static final int NO_TEAM = -1;
+    static final int[] NO_ROWS = new int[0];
+
+    static final ColumnarSnapshot EMPTY = build(Collections.emptyList());
+
+    final long[] ids;
+    final String[] usernames;
+    final int[] ages;
+    final int[] teamCodes;
+    final long[] teamIdByCode;
+
+    private final Map<Long, Integer> codeByTeamId;
+    private final int[][] rowsByTeamCode;
+    private final Map<String, int[]> rowsByUsername;
+    private final int[] ageOrder;
+    private final int[] sortedAges;
+
+    private ColumnarSnapshot(long[] ids, String[] usernames, int[] ages, int[] teamCodes, long[] teamIdByCode,
+                             Map<Long, Integer> codeByTeamId, int[][] rowsByTeamCode,
+                             Map<String, int[]> rowsByUsername, int[] ageOrder, int[] sortedAges) {
+        this.ids = ids;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.teamCodes = teamCodes;
+        this.teamIdByCode = teamIdByCode;
+        this.codeByTeamId = codeByTeamId;
+        this.rowsByTeamCode = rowsByTeamCode;
+        this.rowsByUsername = rowsByUsername;
+        this.ageOrder = ageOrder;
+        this.sortedAges = sortedAges;
+    }
+
+    /**
+     * @param rows id 오름차순
+     */
+    static ColumnarSnapshot build(List<MemberRow> rows) {
+        int size = rows.size();
+        long[] ids = new long[size];
+        String[] usernames = new String[size];
+        int[] ages = new int[size];
+        int[] teamCodes = new int[size];
+
+        Map<Long, Integer> codeByTeamId = new HashMap<>();
+        long[] teamIdByCode = new long[16];
+        Map<String, int[]> usernameCounts = new HashMap<>();
+
+        for (int row = 0; row < size; row++) {
+            MemberRow member = rows.get(row);
+            if (row > 0 && member.id <= ids[row - 1]) {
+                throw new IllegalArgumentException("rows must be sorted by id: " + member.id);
+            }
+            ids[row] = member.id;
+            usernames[row] = member.username;
+            ages[row] = member.age;
+
+            if (member.teamId == null) {
+                teamCodes[row] = NO_TEAM;
+            } else {
+                Integer code = codeByTeamId.get(member.teamId);
+                if (code == null) {
+                    code = codeByTeamId.size();
+                    codeByTeamId.put(member.teamId, code);
+                    if (code == teamIdByCode.length) {
+                        teamIdByCode = Arrays.copyOf(teamIdByCode, code * 2);
+                    }
+                    teamIdByCode[code] = member.teamId;
+                }
+                teamCodes[row] = code;
+            }
+
+            if (member.username != null) {
+                usernameCounts.computeIfAbsent(member.username, k -> new int[1])[0]++;
+            }
+        }
+        teamIdByCode = Arrays.copyOf(teamIdByCode, codeByTeamId.size());
+
+        int[] ageOrder = ageOrder(ages);
+        int[] sortedAges = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedAges[i] = ages[ageOrder[i]];
+        }
+
+        return new ColumnarSnapshot(ids, usernames, ages, teamCodes, teamIdByCode, codeByTeamId,
+                rowsByTeamCode(teamCodes, teamIdByCode.length), rowsByUsername(usernames, usernameCounts),
+                ageOrder, sortedAges);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return 행 번호, 없으면 음수
+     */
+    int rowOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    Long teamId(int row) {
+        int code = teamCodes[row];
+        return code == NO_TEAM ? null : teamIdByCode[code];
+    }
+
+    /**
+     * @return 팀 코드, 스냅샷에 없는 팀이면 음수
+     */
+    int teamCode(long teamId) {
+        Integer code = codeByTeamId.get(teamId);
+        return code == null ? -1 : code;
+    }
+
+    int teamCount() {
+        return teamIdByCode.length;
+    }
+
+    /**
+     * username 이 같은 행 (행 번호 오름차순)
+     */
+    int[] rowsByUsername(String username) {
+        return rowsByUsername.getOrDefault(username, NO_ROWS);
+    }
+
+    /**
+     * 주어진 팀들에 속한 행 (행 번호 오름차순)
+     */
+    int[] rowsByTeams(Collection<Long> teamIds) {
+        int[] result = NO_ROWS;
+        for (Long teamId : teamIds) {
+            int code = teamCode(teamId);
+            if (code < 0) {
+                continue;
+            }
+            int[] rows = rowsByTeamCode[code];
+            if (result.length == 0) {
+                result = rows;
+            } else {
+                int[] merged = Arrays.copyOf(result, result.length + rows.length);
+                System.arraycopy(rows, 0, merged, result.length, rows.length);
+                Arrays.sort(merged);
+                result = merged;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ageGoe <= age <= ageLoe 인 행 (나이 순서, null 이면 그쪽 제한 없음)
+     */
+    int[] rowsByAgeRange(Integer ageGoe, Integer ageLoe) {
+        int from = ageGoe == null ? 0 : lowerBound(sortedAges, ageGoe);
+        int to = ageLoe == null ? sortedAges.length : upperBound(sortedAges, ageLoe);
+        return from >= to ? NO_ROWS : Arrays.copyOfRange(ageOrder, from, to);
+    }
+
+    /**
+     * 범위 조회 결과 크기만 (복사 없이) - 후보 선택용
+     */
+    int countByAgeRange(Integer ageGoe, Integer ageLoe) {
+        int from = ageGoe == null ? 0 : lowerBound(sortedAges, ageGoe);
+        int to = ageLoe == null ? sortedAges.length : upperBound(sortedAges, ageLoe);
+        return Math.max(0, to - from);
+    }
+
+    private static int[][] rowsByTeamCode(int[] teamCodes, int teams) {
+        int[] counts = new int[teams];
+        for (int code : teamCodes) {
+            if (code != NO_TEAM) {
+                counts[code]++;
+            }
+        }
+        int[][] rows = new int[teams][];
+        for (int code = 0; code < teams; code++) {
+            rows[code] = new int[counts[code]];
+            counts[code] = 0;
+        }
+        for (int row = 0; row < teamCodes.length; row++) {
+            int code = teamCodes[row];
+            if (code != NO_TEAM) {
+                rows[code][counts[code]++] = row;
+            }
+        }
+        return rows;
+    }
+
+    private static Map<String, int[]> rowsByUsername(String[] usernames, Map<String, int[]> counts) {
+        Map<String, int[]> rows = new HashMap<>(counts.size() * 2);
+        counts.forEach((username, count) -> rows.put(username, new int[count[0]]));
+        Map<String, int[]> filled = new HashMap<>(counts.size() * 2);
+        for (int row = 0; row < usernames.length; row++) {
+            String username = usernames[row];
+            if (username != null) {
+                int[] fill = filled.computeIfAbsent(username, k -> new int[1]);
+                rows.get(username)[fill[0]++] = row;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * (age, 행 번호) 를 long 하나로 묶어 정렬 -> 박싱 없이 나이순 행 번호
+     */
+    private static int[] ageOrder(int[] ages) {
+        long[] keys = new long[ages.length];
+        for (int row = 0; row < ages.length; row++) {
+            keys[row] = ((long) ages[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[ages.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,676 @@
+package study.querydsl.repository.columnar;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.event.MemberChangeListener;
+import study.querydsl.repository.event.MemberSnapshot;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색용 메모리 열(column) 인덱스 - member.columnar-index.enabled 로 켠다. (기본은 꺼져 있음)
+ *
+ * - 시작할 때 member/team 전체를 읽어 ColumnarSnapshot 을 만들고, 켜져 있으면 search / searchPage* 를 DB 대신 여기서 응답한다.
+ * - Member/Team insert/update/delete 는 hibernate 이벤트로 모아 두었다가 커밋 후 delta(id -> 최신 행)로 반영한다.
+ *   delta 가 max-delta 를 넘으면 스냅샷과 합쳐서 새로 만든다. (compaction)
+ * - 벌크 연산(onBulkChange)은 어떤 행이 바뀌었는지 모르므로 DB 에서 다시 읽을 때까지 DB 로 조회한다.
+ * - 쓰기 트랜잭션 안에서는 아직 커밋 안 된 변경이 인덱스에 없으므로 DB 로 조회한다.
+ *
+ * 결과는 member_id 오름차순이다. (DB 경로는 정렬 조건이 없다)
+ */
+@Slf4j
+@Component
+public class MemberColumnarIndex implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, MemberChangeListener, SmartInitializingSingleton, ApplicationRunner {
+
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final boolean enabled;
+    private final int maxDelta;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService reloadExecutor;
+
+    private volatile State state = new State(ColumnarSnapshot.EMPTY, Collections.emptyMap(), Collections.emptyMap());
+    private volatile boolean ready;
+    private volatile boolean stale;
+
+    /**
+     * 반영한 변경마다 증가 (writer 락 안에서만 쓴다)
+     */
+    private long seq;
+    /**
+     * 다시 읽는 중이면 compaction 하지 않는다. (읽는 동안의 변경을 delta 의 seq 로 골라내야 하므로)
+     */
+    private int reloadsInProgress;
+    private final AtomicLong reloadRequests = new AtomicLong();
+
+    /**
+     * 트랜잭션 밖에서 일어난 변경 (이벤트 직후 바로 반영)
+     */
+    private final ThreadLocal<PendingChanges> noTransactionChanges = ThreadLocal.withInitial(PendingChanges::new);
+
+    public MemberColumnarIndex(@Value("${member.columnar-index.enabled:false}") boolean enabled,
+                               @Value("${member.columnar-index.max-delta:10000}") int maxDelta,
+                               EntityManager em,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager) {
+        if (maxDelta < 1) {
+            throw new IllegalArgumentException("max-delta must be positive: " + maxDelta);
+        }
+        this.enabled = enabled;
+        this.maxDelta = maxDelta;
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryFactory = new JPAQueryFactory(em);
+        // 복제 지연이 없도록 primary 에서 읽는다. (readOnly 로 두지 않는다)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "columnar-index-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 지금 이 인덱스로 응답해도 되는지
+     */
+    public boolean canServe() {
+        if (!enabled || !ready || stale) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * 이벤트를 먼저 받기 시작해야 적재 중에 커밋된 변경을 놓치지 않는다.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            reload(reloadRequests.get());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        State current = state;
+        Matches matches = match(current, condition.normalized());
+        return matches.content(current, 0, matches.total());
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        State current = state;
+        Matches matches = match(current, condition.normalized());
+        List<MemberTeamDto> content = matches.content(current, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, matches.total());
+    }
+
+    public int getSnapshotSize() {
+        return state.snapshot.size();
+    }
+
+    public int getDeltaSize() {
+        return state.delta.size();
+    }
+
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onPostWrite(event.getEntity(), (Long) event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onPostWrite(event.getEntity(), (Long) event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pendingChanges().members.put((Long) event.getId(), null);
+        } else if (event.getEntity() instanceof Team) {
+            pendingChanges().teams.put((Long) event.getId(), null);
+        }
+        applyIfNoTransaction();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 회원/팀 단건 변경은 hibernate 이벤트로 (id 까지) 받으므로 여기서는 무시한다.
+     */
+    @Override
+    public void onMemberChanged(MemberSnapshot before, MemberSnapshot after) {
+    }
+
+    @Override
+    public void onTeamChanged(String beforeTeamname, String afterTeamname) {
+    }
+
+    /**
+     * flush 시점(커밋 전)과 트랜잭션 종료 후 두 번 온다. 마지막 요청의 reload 가 끝나야 다시 응답한다.
+     */
+    @Override
+    public void onBulkChange() {
+        if (!enabled) {
+            return;
+        }
+        stale = true;
+        long request = reloadRequests.incrementAndGet();
+        reloadExecutor.execute(() -> reload(request));
+    }
+
+    /**
+     * 바뀐 id 를 아는 벌크 연산 - 전체 대신 그 회원들만 다시 읽는다. (onBulkChange 와 같이 두 번 온다)
+     */
+    @Override
+    public void onMembersChanged(Collection<Long> memberIds) {
+        if (!enabled) {
+            return;
+        }
+        stale = true;
+        long request = reloadRequests.incrementAndGet();
+        List<Long> ids = new ArrayList<>(memberIds);
+        reloadExecutor.execute(() -> refresh(ids, request));
+    }
+
+    private void onPostWrite(Object entity, Long id) {
+        if (entity instanceof Member) {
+            Member changed = (Member) entity;
+            Long teamId = changed.getTeam() != null ? changed.getTeam().getId() : null;
+            pendingChanges().members.put(id, new MemberRow(id, changed.getUsername(), changed.getAge(), teamId));
+        } else if (entity instanceof Team) {
+            pendingChanges().teams.put(id, ((Team) entity).getTeamname());
+        } else {
+            return;
+        }
+        applyIfNoTransaction();
+    }
+
+    /**
+     * 트랜잭션마다 변경을 모아 두었다가 커밋되면 반영한다. (롤백이면 버린다)
+     */
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return noTransactionChanges.get();
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PendingChanges completed = (PendingChanges)
+                            TransactionSynchronizationManager.unbindResourceIfPossible(MemberColumnarIndex.this);
+                    if (completed != null && status == STATUS_COMMITTED) {
+                        apply(completed, Long.MAX_VALUE);
+                    }
+                }
+            });
+        }
+        return pending;
+    }
+
+    private void applyIfNoTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingChanges pending = noTransactionChanges.get();
+            noTransactionChanges.remove();
+            apply(pending, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @param changedAfterSeq 이 seq 이후에 delta 가 바뀐 회원은 건너뛴다. (DB 에서 다시 읽은 값이 더 오래된 경우)
+     */
+    private synchronized void apply(PendingChanges changes, long changedAfterSeq) {
+        State current = state;
+
+        Map<Long, Versioned<MemberRow>> delta = current.delta;
+        if (!changes.members.isEmpty()) {
+            delta = new HashMap<>(current.delta);
+            for (Map.Entry<Long, MemberRow> change : changes.members.entrySet()) {
+                Versioned<MemberRow> previous = delta.get(change.getKey());
+                if (previous != null && previous.seq > changedAfterSeq) {
+                    continue;
+                }
+                delta.put(change.getKey(), new Versioned<>(++seq, change.getValue()));
+            }
+        }
+
+        Map<Long, Versioned<String>> teamnames = current.teamnames;
+        if (!changes.teams.isEmpty()) {
+            teamnames = new HashMap<>(current.teamnames);
+            for (Map.Entry<Long, String> change : changes.teams.entrySet()) {
+                teamnames.put(change.getKey(), new Versioned<>(++seq, change.getValue()));
+            }
+        }
+
+        State next = new State(current.snapshot, delta, teamnames);
+        state = reloadsInProgress == 0 && next.delta.size() > maxDelta ? next.compact() : next;
+    }
+
+    /**
+     * DB 에서 전체를 다시 읽는다. 읽는 동안 반영된 변경(seq > 시작 시점)은 delta 로 남긴다.
+     */
+    private void reload(long request) {
+        long startSeq;
+        synchronized (this) {
+            startSeq = seq;
+            reloadsInProgress++;
+        }
+
+        long start = System.nanoTime();
+        Loaded loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> load());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                reloadsInProgress--;
+            }
+            log.warn("columnar index reload failed", e);
+            return;
+        }
+
+        synchronized (this) {
+            reloadsInProgress--;
+            State current = state;
+            Map<Long, Versioned<MemberRow>> delta = new HashMap<>();
+            current.delta.forEach((id, row) -> {
+                if (row.seq > startSeq) {
+                    delta.put(id, row);
+                }
+            });
+            Map<Long, Versioned<String>> teamnames = new HashMap<>(loaded.teamnames);
+            current.teamnames.forEach((id, teamname) -> {
+                if (teamname.seq > startSeq) {
+                    teamnames.put(id, teamname);
+                }
+            });
+            state = new State(ColumnarSnapshot.build(loaded.rows), delta, teamnames);
+            ready = true;
+            if (reloadRequests.get() == request) {
+                stale = false;
+            }
+        }
+        log.info("columnar index loaded: members={}, teams={}, {}ms",
+                loaded.rows.size(), loaded.teamnames.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 주어진 회원만 DB 에서 다시 읽어 delta 로 반영한다. (없어진 회원은 삭제)
+     */
+    private void refresh(List<Long> memberIds, long request) {
+        long startSeq;
+        synchronized (this) {
+            startSeq = seq;
+        }
+
+        PendingChanges changes;
+        try {
+            changes = transactionTemplate.execute(status -> loadMembers(memberIds));
+        } catch (RuntimeException e) {
+            log.warn("columnar index refresh failed, reloading all", e);
+            reload(request);
+            return;
+        }
+
+        apply(changes, startSeq);
+        if (reloadRequests.get() == request && ready) {
+            stale = false;
+        }
+    }
+
+    private PendingChanges loadMembers(List<Long> memberIds) {
+        PendingChanges changes = new PendingChanges();
+        memberIds.forEach(id -> changes.members.put(id, null));
+        for (int from = 0; from < memberIds.size(); from += LOAD_FETCH_SIZE) {
+            List<Long> chunk = memberIds.subList(from, Math.min(from + LOAD_FETCH_SIZE, memberIds.size()));
+            for (Tuple row : queryFactory.select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .fetch()) {
+                changes.members.put(row.get(member.id), new MemberRow(row.get(member.id), row.get(member.username),
+                        row.get(member.age), row.get(member.team.id)));
+            }
+        }
+        return changes;
+    }
+
+    private Loaded load() {
+        Map<Long, Versioned<String>> teamnames = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.teamname).from(team).fetch()) {
+            teamnames.put(row.get(team.id), new Versioned<>(0, row.get(team.teamname)));
+        }
+
+        List<MemberRow> rows = new ArrayList<>();
+        try (Stream<Tuple> stream = queryFactory.select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, LOAD_FETCH_SIZE)
+                .stream()) {
+            stream.forEach(row -> rows.add(new MemberRow(row.get(member.id), row.get(member.username),
+                    row.get(member.age), row.get(member.team.id))));
+        }
+        return new Loaded(rows, teamnames);
+    }
+
+
+    /**
+     * 후보 행을 가장 좁은 인덱스로 고르고(username 해시 > 팀/나이 범위 중 작은 쪽 > 전체), 나머지 조건은 열 배열로 거른다.
+     */
+    private static Matches match(State current, MemberSearchCondition condition) {
+        ColumnarSnapshot snapshot = current.snapshot;
+        String username = condition.getUsername();
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+
+        Set<Long> teamIds = condition.getTeamname() != null ? current.teamIds(condition.getTeamname()) : null;
+        boolean[] teamCodeMatches = null;
+        if (teamIds != null) {
+            teamCodeMatches = new boolean[snapshot.teamCount()];
+            for (Long teamId : teamIds) {
+                int code = snapshot.teamCode(teamId);
+                if (code >= 0) {
+                    teamCodeMatches[code] = true;
+                }
+            }
+        }
+
+        int[] candidates;
+        if (username != null) {
+            candidates = snapshot.rowsByUsername(username);
+        } else {
+            int[] teamRows = teamIds != null ? snapshot.rowsByTeams(teamIds) : null;
+            boolean ageRange = ageGoe != null || ageLoe != null;
+            if (ageRange && (teamRows == null || snapshot.countByAgeRange(ageGoe, ageLoe) < teamRows.length)) {
+                candidates = snapshot.rowsByAgeRange(ageGoe, ageLoe);
+                Arrays.sort(candidates);
+            } else {
+                candidates = teamRows;
+            }
+        }
+
+        int size = candidates != null ? candidates.length : snapshot.size();
+        int[] rows = new int[size];
+        int count = 0;
+        int[] overridden = current.overriddenRows;
+        int overriddenIndex = 0;
+        for (int i = 0; i < size; i++) {
+            int row = candidates != null ? candidates[i] : i;
+            // 후보가 행 번호 순이므로 delta 에 있는 행도 같은 순서로 건너뛴다.
+            while (overriddenIndex < overridden.length && overridden[overriddenIndex] < row) {
+                overriddenIndex++;
+            }
+            if (overriddenIndex < overridden.length && overridden[overriddenIndex] == row) {
+                continue;
+            }
+            if (username != null && !username.equals(snapshot.usernames[row])) {
+                continue;
+            }
+            int age = snapshot.ages[row];
+            if ((ageGoe != null && age < ageGoe) || (ageLoe != null && age > ageLoe)) {
+                continue;
+            }
+            if (teamCodeMatches != null) {
+                int code = snapshot.teamCodes[row];
+                if (code == ColumnarSnapshot.NO_TEAM || !teamCodeMatches[code]) {
+                    continue;
+                }
+            }
+            rows[count++] = row;
+        }
+
+        List<MemberRow> deltaRows = new ArrayList<>();
+        for (Versioned<MemberRow> changed : current.delta.values()) {
+            MemberRow row = changed.value;
+            if (row == null
+                    || (username != null && !username.equals(row.username))
+                    || (ageGoe != null && row.age < ageGoe)
+                    || (ageLoe != null && row.age > ageLoe)
+                    || (teamIds != null && (row.teamId == null || !teamIds.contains(row.teamId)))) {
+                continue;
+            }
+            deltaRows.add(row);
+        }
+        deltaRows.sort(Comparator.comparingLong(row -> row.id));
+
+        return new Matches(rows, count, deltaRows);
+    }
+
+    /**
+     * 검색 결과 - 스냅샷 행 번호와 delta 행을 id 순으로 합쳐서 필요한 구간만 DTO 로 만든다.
+     */
+    private static class Matches {
+        private final int[] rows;
+        private final int rowCount;
+        private final List<MemberRow> deltaRows;
+
+        Matches(int[] rows, int rowCount, List<MemberRow> deltaRows) {
+            this.rows = rows;
+            this.rowCount = rowCount;
+            this.deltaRows = deltaRows;
+        }
+
+        int total() {
+            return rowCount + deltaRows.size();
+        }
+
+        List<MemberTeamDto> content(State current, long offset, int limit) {
+            ColumnarSnapshot snapshot = current.snapshot;
+            List<MemberTeamDto> content = new ArrayList<>((int) Math.max(0, Math.min(limit, total() - offset)));
+            int rowIndex = 0;
+            int deltaIndex = 0;
+            long position = 0;
+            while (content.size() < limit && (rowIndex < rowCount || deltaIndex < deltaRows.size())) {
+                boolean fromSnapshot = deltaIndex >= deltaRows.size()
+                        || (rowIndex < rowCount && snapshot.ids[rows[rowIndex]] < deltaRows.get(deltaIndex).id);
+                if (position++ < offset) {
+                    if (fromSnapshot) {
+                        rowIndex++;
+                    } else {
+                        deltaIndex++;
+                    }
+                    continue;
+                }
+                if (fromSnapshot) {
+                    int row = rows[rowIndex++];
+                    Long teamId = snapshot.teamId(row);
+                    content.add(new MemberTeamDto(snapshot.ids[row], snapshot.usernames[row], snapshot.ages[row],
+                            teamId, current.teamname(teamId)));
+                } else {
+                    MemberRow row = deltaRows.get(deltaIndex++);
+                    content.add(new MemberTeamDto(row.id, row.username, row.age, row.teamId, current.teamname(row.teamId)));
+                }
+            }
+            return content;
+        }
+    }
+
+    /**
+     * 읽기 전용 상태 - 바꿀 때는 통째로 새로 만들어 state 에 넣는다.
+     */
+    private static class State {
+        private final ColumnarSnapshot snapshot;
+        /**
+         * id -> 커밋된 최신 행 (value 가 null 이면 삭제)
+         */
+        private final Map<Long, Versioned<MemberRow>> delta;
+        /**
+         * team_id -> 팀명 (value 가 null 이면 삭제)
+         */
+        private final Map<Long, Versioned<String>> teamnames;
+        /**
+         * delta 가 덮어쓰는 스냅샷 행 번호 (오름차순)
+         */
+        private final int[] overriddenRows;
+
+        State(ColumnarSnapshot snapshot, Map<Long, Versioned<MemberRow>> delta, Map<Long, Versioned<String>> teamnames) {
+            this.snapshot = snapshot;
+            this.delta = delta;
+            this.teamnames = teamnames;
+
+            int[] overridden = new int[delta.size()];
+            int count = 0;
+            for (Long id : delta.keySet()) {
+                int row = snapshot.rowOf(id);
+                if (row >= 0) {
+                    overridden[count++] = row;
+                }
+            }
+            this.overriddenRows = Arrays.copyOf(overridden, count);
+            Arrays.sort(this.overriddenRows);
+        }
+
+        String teamname(Long teamId) {
+            if (teamId == null) {
+                return null;
+            }
+            Versioned<String> teamname = teamnames.get(teamId);
+            return teamname != null ? teamname.value : null;
+        }
+
+        Set<Long> teamIds(String teamname) {
+            Set<Long> teamIds = new HashSet<>();
+            teamnames.forEach((teamId, name) -> {
+                if (teamname.equals(name.value)) {
+                    teamIds.add(teamId);
+                }
+            });
+            return teamIds;
+        }
+
+        /**
+         * 스냅샷과 delta 를 id 순으로 합쳐 새 스냅샷을 만든다.
+         */
+        State compact() {
+            List<MemberRow> deltaRows = new ArrayList<>();
+            for (Versioned<MemberRow> changed : delta.values()) {
+                if (changed.value != null) {
+                    deltaRows.add(changed.value);
+                }
+            }
+            deltaRows.sort(Comparator.comparingLong(row -> row.id));
+
+            List<MemberRow> rows = new ArrayList<>(snapshot.size() + deltaRows.size());
+            int overriddenIndex = 0;
+            int deltaIndex = 0;
+            for (int row = 0; row < snapshot.size(); row++) {
+                if (overriddenIndex < overriddenRows.length && overriddenRows[overriddenIndex] == row) {
+                    overriddenIndex++;
+                    continue;
+                }
+                long id = snapshot.ids[row];
+                while (deltaIndex < deltaRows.size() && deltaRows.get(deltaIndex).id < id) {
+                    rows.add(deltaRows.get(deltaIndex++));
+                }
+                rows.add(new MemberRow(id, snapshot.usernames[row], snapshot.ages[row], snapshot.teamId(row)));
+            }
+            rows.addAll(deltaRows.subList(deltaIndex, deltaRows.size()));
+
+            return new State(ColumnarSnapshot.build(rows), Collections.emptyMap(), teamnames);
+        }
+    }
+
+    private static class Versioned<T> {
+        private final long seq;
+        private final T value;
+
+        Versioned(long seq, T value) {
+            this.seq = seq;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 한 트랜잭션에서 바뀐 회원/팀 (value 가 null 이면 삭제)
+     */
+    private static class PendingChanges {
+        private final Map<Long, MemberRow> members = new LinkedHashMap<>();
+        private final Map<Long, String> teams = new LinkedHashMap<>();
+    }
+
+    private static class Loaded {
+        private final List<MemberRow> rows;
+        private final Map<Long, Versioned<String>> teamnames;
+
+        Loaded(List<MemberRow> rows, Map<Long, Versioned<String>> teamnames) {
+            this.rows = rows;
+            this.teamnames = teamnames;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.columnar;
+
+/**
+ * 인덱스에 들어가는 회원 한 명 (팀명은 팀 사전에서 따로 찾는다)
+ */
+final class MemberRow {
+
+    final long id;
+    final String username;
+    final int age;
+    final Long teamId;
+
+    MemberRow(long id, String username, int age, Long teamId) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.repository.event;
+
+import java.util.Collection;
+
+/**
+ * 회원/팀 변경 통지를 받는 쪽 (검색 캐시 등)
+ * 같은 변경이 flush 시점과 트랜잭션 종료 시점에 두 번 전달될 수 있으므로 멱등하게 처리해야 한다.
+ */
+public interface MemberChangeListener {
+
+    /**
+     * @param before 변경 전 (insert 면 null)
+     * @param after  변경 후 (delete 면 null)
+     */
+    void onMemberChanged(MemberSnapshot before, MemberSnapshot after);
+
+    /**
+     * 팀명 변경/삭제 - 해당 팀명 조건을 가진 검색 결과가 모두 바뀐다.
+     */
+    void onTeamChanged(String beforeTeamname, String afterTeamname);
+
+    /**
+     * 벌크 연산 등 어떤 행이 바뀌었는지 알 수 없는 변경
+     */
+    void onBulkChange();
+
+    /**
+     * 벌크 연산으로 바뀐 회원 id - 바뀐 값은 같은 변경 안에서 onMemberChanged 로 먼저 전달된다.
+     * 값이 아니라 id 로 다시 읽어야 하는 쪽(MemberColumnarIndex)만 구현한다.
+     */
+    default void onMembersChanged(Collection<Long> memberIds) {
+    }
+}
@@ -0,0 +1,199 @@
+package study.querydsl.repository.event;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Member/Team 의 insert, update, delete 를 hibernate 이벤트로 받아서 MemberChangeListener 에 전달한다.
+ * em.persist, MemberJpaRepository.save, MemberRepository.save 모두 여기를 거친다.
+ * 벌크 연산(JPQL update)은 이벤트가 발생하지 않으므로 publishBulkChange 를 직접 호출해야 한다.
+ *
+ * flush 시점에 한 번 전달하고(같은 트랜잭션 안의 조회용),
+ * 트랜잭션이 끝난 뒤(커밋/롤백) 한 번 더 전달한다(그 사이 다른 트랜잭션이 채운 캐시 정리용).
+ */
+@Component
+public class MemberChangePublisher implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, SmartInitializingSingleton {
+
+    private static final int MAX_PENDING_CHANGES = 1000;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<MemberChangeListener> listenerProvider;
+
+    private volatile List<MemberChangeListener> listeners = Collections.emptyList();
+
+    public MemberChangePublisher(EntityManagerFactory entityManagerFactory,
+                                 ObjectProvider<MemberChangeListener> listenerProvider) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public void publishBulkChange() {
+        publish(MemberChangeListener::onBulkChange);
+    }
+
+    /**
+     * 어떤 행이 바뀌었는지 아는 벌크 연산 (MemberBulkUpdater)
+     *
+     * @param before id -> 변경 전
+     * @param after  id -> 변경 후 (없으면 삭제된 것으로 본다)
+     */
+    public void publishMembersChanged(Map<Long, MemberSnapshot> before, Map<Long, MemberSnapshot> after) {
+        Set<Long> memberIds = Collections.unmodifiableSet(new LinkedHashSet<>(before.keySet()));
+        publish(listener -> {
+            memberIds.forEach(id -> listener.onMemberChanged(before.get(id), after.get(id)));
+            listener.onMembersChanged(memberIds);
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            MemberSnapshot after = snapshot(event.getPersister(), event.getState());
+            publish(listener -> listener.onMemberChanged(null, after));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            if (event.getOldState() == null) {
+                // detached 엔티티 update 등 변경 전 값을 모르는 경우
+                publishBulkChange();
+                return;
+            }
+            MemberSnapshot before = snapshot(event.getPersister(), event.getOldState());
+            MemberSnapshot after = snapshot(event.getPersister(), event.getState());
+            publish(listener -> listener.onMemberChanged(before, after));
+        } else if (event.getEntity() instanceof Team) {
+            String after = teamname(event.getPersister(), event.getState());
+            String before = event.getOldState() != null ? teamname(event.getPersister(), event.getOldState()) : null;
+            if (event.getOldState() == null || !Objects.equals(before, after)) {
+                publish(listener -> listener.onTeamChanged(before, after));
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            MemberSnapshot before = snapshot(event.getPersister(), event.getDeletedState());
+            publish(listener -> listener.onMemberChanged(before, null));
+        } else if (event.getEntity() instanceof Team) {
+            String before = teamname(event.getPersister(), event.getDeletedState());
+            publish(listener -> listener.onTeamChanged(before, null));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(Consumer<MemberChangeListener> change) {
+        listeners.forEach(change);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingChanges().add(change);
+        }
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PendingChanges completed = (PendingChanges)
+                            TransactionSynchronizationManager.unbindResourceIfPossible(MemberChangePublisher.this);
+                    if (completed != null) {
+                        completed.changes.forEach(change -> listeners.forEach(change));
+                    }
+                }
+            });
+        }
+        return pending;
+    }
+
+    private static MemberSnapshot snapshot(EntityPersister persister, Object[] state) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        String username = (String) state[metamodel.getPropertyIndex("username")];
+        int age = (Integer) state[metamodel.getPropertyIndex("age")];
+        Object team = state[metamodel.getPropertyIndex("team")];
+
+        if (team == null) {
+            return new MemberSnapshot(username, age, null, true);
+        }
+        if (!Hibernate.isInitialized(team)) {
+            return new MemberSnapshot(username, age, null, false);
+        }
+        return new MemberSnapshot(username, age, ((Team) team).getTeamname(), true);
+    }
+
+    private static String teamname(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("teamname")];
+    }
+
+    /**
+     * 트랜잭션 종료 후 다시 전달할 변경 목록
+     * 너무 많아지면 전체 무효화 한 번으로 대신한다.
+     */
+    private static class PendingChanges {
+        private final List<Consumer<MemberChangeListener>> changes = new ArrayList<>();
+        private boolean overflowed;
+
+        void add(Consumer<MemberChangeListener> change) {
+            if (overflowed) {
+                return;
+            }
+            if (changes.size() >= MAX_PENDING_CHANGES) {
+                changes.clear();
+                changes.add(MemberChangeListener::onBulkChange);
+                overflowed = true;
+                return;
+            }
+            changes.add(change);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.repository.event;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 변경 시점의 회원 검색 대상 컬럼 값
+ * 팀이 지연로딩 프록시라 팀명을 알 수 없으면 teamnameKnown = false 로 두고,
+ * 이 경우 팀명 조건은 항상 일치하는 것으로 본다. (보수적으로 무효화)
+ */
+@Getter
+@ToString
+public class MemberSnapshot {
+
+    private final String username;
+    private final int age;
+    private final String teamname;
+    private final boolean teamnameKnown;
+
+    public MemberSnapshot(String username, int age, String teamname, boolean teamnameKnown) {
+        this.username = username;
+        this.age = age;
+        this.teamname = teamname;
+        this.teamnameKnown = teamnameKnown;
+    }
+
+    /**
+     * 이 회원이 검색 조건에 걸릴 수 있는지 (MemberJpaRepository.search 의 where 절과 같은 규칙)
+     */
+    public boolean matches(MemberSearchCondition condition) {
+        if (hasText(condition.getUsername()) && !condition.getUsername().equals(username)) {
+            return false;
+        }
+        if (hasText(condition.getTeamname()) && teamnameKnown && !condition.getTeamname().equals(teamname)) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && age < condition.getAgeGoe()) {
+            return false;
+        }
+        return condition.getAgeLoe() == null || age <= condition.getAgeLoe();
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.repository.readmodel;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * member_team 읽기 모델 점검 결과
+ */
+@Getter
+@ToString
+public class ConsistencyReport {
+
+    /**
+     * member 에는 있는데 member_team 에 없는 행
+     */
+    private final long missing;
+
+    /**
+     * member_team 에만 있는 행
+     */
+    private final long orphaned;
+
+    /**
+     * 둘 다 있지만 값이 다른 행
+     */
+    private final long mismatched;
+
+    public ConsistencyReport(long missing, long orphaned, long mismatched) {
+        this.missing = missing;
+        this.orphaned = orphaned;
+        this.mismatched = mismatched;
+    }
+
+    public boolean isConsistent() {
+        return missing == 0 && orphaned == 0 && mismatched == 0;
+    }
+}
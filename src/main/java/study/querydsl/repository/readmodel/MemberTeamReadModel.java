@@ -0,0 +1,232 @@
+package study.querydsl.repository.readmodel;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * member_team 읽기 모델 (MemberTeamView) 유지 - member.read-model.enabled 로 켠다. (기본은 꺼져 있음)
+ *
+ * - 켜져 있으면 search / searchPage* 가 member left join team 대신 member_team 을 조회한다.
+ * - Member insert/update/delete, Team 이름 변경/삭제를 hibernate 이벤트로 받아 같은 트랜잭션에서 반영한다.
+ * - 벌크 연산은 이벤트가 없으므로 sync 로 걸린 id 범위에서 달라진 행만 다시 맞춘다. (MemberJpaRepository.bulkUpdate)
+ * - 대량 적재는 deferInserts 로 행마다 insert 하지 않고, chunk 마다 sync 로 한 번에 맞춘다. (MemberBulkLoader)
+ * - 꺼져 있던 동안의 변경 등은 MemberTeamReadModelJob 의 backfill 로 맞춘다.
+ */
+@Component
+public class MemberTeamReadModel implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, SmartInitializingSingleton {
+
+    private static final String MEMBER_ROW = "select m.member_id, m.username, m.age, m.team_id, t.teamname"
+            + " from member m left join team t on t.team_id = m.team_id";
+
+    /**
+     * member 와 다른(또는 member 에 없는) 행을 지운다. - ?1, ?2 : member_id 범위 [from, to)
+     */
+    static final String DELETE_STALE = "delete from member_team v"
+            + " where v.member_id >= ? and v.member_id < ?"
+            + " and not exists (select 1 from member m left join team t on t.team_id = m.team_id"
+            + " where m.member_id = v.member_id"
+            + " and m.username is not distinct from v.username"
+            + " and m.age = v.age"
+            + " and m.team_id is not distinct from v.team_id"
+            + " and t.teamname is not distinct from v.teamname)";
+
+    /**
+     * member_team 에 없는 회원을 넣는다. - ?1, ?2 : member_id 범위 [from, to)
+     */
+    static final String INSERT_MISSING = "insert into member_team (member_id, username, age, team_id, teamname) "
+            + MEMBER_ROW
+            + " where m.member_id >= ? and m.member_id < ?"
+            + " and not exists (select 1 from member_team v where v.member_id = m.member_id)";
+
+    private static final String INSERT = "insert into member_team (member_id, username, age, team_id, teamname)"
+            + " values (?, ?, ?, ?, ?)";
+    private static final String INSERT_WITH_TEAMNAME_LOOKUP = "insert into member_team (member_id, username, age, team_id, teamname)"
+            + " values (?, ?, ?, ?, (select t.teamname from team t where t.team_id = ?))";
+    private static final String UPDATE = "update member_team set username = ?, age = ?, team_id = ?, teamname = ?"
+            + " where member_id = ?";
+    private static final String UPDATE_WITH_TEAMNAME_LOOKUP = "update member_team set username = ?, age = ?, team_id = ?,"
+            + " teamname = (select t.teamname from team t where t.team_id = ?) where member_id = ?";
+    private static final String DELETE = "delete from member_team where member_id = ?";
+    private static final String UPDATE_TEAMNAME = "update member_team set teamname = ? where team_id = ?";
+    private static final String DETACH_TEAM = "update member_team set team_id = null, teamname = null where team_id = ?";
+
+    private final boolean enabled;
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ThreadLocal<Boolean> insertsDeferred = new ThreadLocal<>();
+
+    public MemberTeamReadModel(@Value("${member.read-model.enabled:false}") boolean enabled,
+                               EntityManager em,
+                               EntityManagerFactory entityManagerFactory) {
+        this.enabled = enabled;
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * 현재 트랜잭션 안에서 member 전체와 맞춘다. 달라진 행만 지우고 다시 넣는다.
+     */
+    public void syncAll() {
+        sync(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * member_id 범위 [fromId, toId) 만 맞춘다. (바뀐 행의 id 를 아는 벌크 연산용)
+     */
+    public void sync(long fromId, long toId) {
+        if (!enabled) {
+            return;
+        }
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            for (String sql : new String[]{DELETE_STALE, INSERT_MISSING}) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, fromId);
+                    statement.setLong(2, toId);
+                    statement.executeUpdate();
+                }
+            }
+        });
+    }
+
+    /**
+     * task 안에서 flush 되는 Member insert 는 읽기 모델에 바로 쓰지 않는다. (JDBC 배치가 끊기지 않도록)
+     * 끝난 뒤 호출한 쪽이 insert 한 id 범위로 sync 해야 한다.
+     */
+    public <T> T deferInserts(Supplier<T> task) {
+        if (!enabled) {
+            return task.get();
+        }
+        Boolean previous = insertsDeferred.get();
+        insertsDeferred.set(Boolean.TRUE);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                insertsDeferred.remove();
+            } else {
+                insertsDeferred.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member && insertsDeferred.get() == null) {
+            Member member = (Member) event.getEntity();
+            writeMember(event.getSession(), (Long) event.getId(), member, INSERT, INSERT_WITH_TEAMNAME_LOOKUP);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            int updated = writeMember(event.getSession(), (Long) event.getId(), member, UPDATE, UPDATE_WITH_TEAMNAME_LOOKUP);
+            if (updated == 0) {
+                // 읽기 모델에 없던 회원 (켜기 전에 만들어진 경우 등)
+                writeMember(event.getSession(), (Long) event.getId(), member, INSERT, INSERT_WITH_TEAMNAME_LOOKUP);
+            }
+        } else if (event.getEntity() instanceof Team) {
+            int index = event.getPersister().getEntityMetamodel().getPropertyIndex("teamname");
+            Object before = event.getOldState() != null ? event.getOldState()[index] : null;
+            Object after = event.getState()[index];
+            if (event.getOldState() == null || !Objects.equals(before, after)) {
+                execute(event.getSession(), UPDATE_TEAMNAME, after, event.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            execute(event.getSession(), DELETE, event.getId());
+        } else if (event.getEntity() instanceof Team) {
+            execute(event.getSession(), DETACH_TEAM, event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 팀이 로딩되어 있으면 그 이름을, 프록시면 team 테이블에서 읽어서 쓴다. (lookupSql 은 teamname 자리에 team_id)
+     * insert 는 member_id 가 맨 앞, update 는 맨 뒤 파라미터다.
+     */
+    private int writeMember(EventSource session, Long memberId, Member member, String sql, String lookupSql) {
+        Team team = member.getTeam();
+        Long teamId = team != null ? team.getId() : null;
+        boolean insert = sql.startsWith("insert");
+
+        if (team == null || Hibernate.isInitialized(team)) {
+            String teamname = team != null ? team.getTeamname() : null;
+            return insert
+                    ? execute(session, sql, memberId, member.getUsername(), member.getAge(), teamId, teamname)
+                    : execute(session, sql, member.getUsername(), member.getAge(), teamId, teamname, memberId);
+        }
+        return insert
+                ? execute(session, lookupSql, memberId, member.getUsername(), member.getAge(), teamId, teamId)
+                : execute(session, lookupSql, member.getUsername(), member.getAge(), teamId, teamId, memberId);
+    }
+
+    /**
+     * flush 중이므로 쿼리(자동 flush)가 아니라 같은 커넥션으로 JDBC 를 직접 실행한다.
+     */
+    private static int execute(EventSource session, String sql, Object... parameters) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    if (parameters[i] == null) {
+                        statement.setNull(i + 1, Types.NULL);
+                    } else {
+                        statement.setObject(i + 1, parameters[i]);
+                    }
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.repository.readmodel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * member_team 읽기 모델 점검(check) / 채우기(backfill)
+ *
+ * - backfill : member_id 범위를 chunk-size 단위로 나눠 chunk 마다 별도 트랜잭션으로 맞춘다.
+ *   달라진 행만 지우고 다시 넣으므로 여러 번 실행해도 된다.
+ * - 읽기 모델이 켜져 있고 backfill-on-startup 이면 시작할 때 한 번 실행한다.
+ */
+@Slf4j
+@Component
+public class MemberTeamReadModelJob implements ApplicationRunner {
+
+    private static final String COUNT_MISSING = "select count(*) from member m"
+            + " where not exists (select 1 from member_team v where v.member_id = m.member_id)";
+    private static final String COUNT_ORPHANED = "select count(*) from member_team v"
+            + " where not exists (select 1 from member m where m.member_id = v.member_id)";
+    private static final String COUNT_MISMATCHED = "select count(*) from member m"
+            + " join member_team v on v.member_id = m.member_id"
+            + " left join team t on t.team_id = m.team_id"
+            + " where m.username is distinct from v.username"
+            + " or m.age <> v.age"
+            + " or m.team_id is distinct from v.team_id"
+            + " or t.teamname is distinct from v.teamname";
+
+    private final MemberTeamReadModel readModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean backfillOnStartup;
+
+    public MemberTeamReadModelJob(MemberTeamReadModel readModel,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${member.read-model.backfill.chunk-size:10000}") int chunkSize,
+                                  @Value("${member.read-model.backfill-on-startup:true}") boolean backfillOnStartup) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk-size must be positive: " + chunkSize);
+        }
+        this.readModel = readModel;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (readModel.isEnabled() && backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    public ConsistencyReport check() {
+        // 세 건수를 같은 트랜잭션에서 센다. (primary 에서 읽도록 readOnly 로 두지 않는다)
+        return transactionTemplate.execute(status ->
+                new ConsistencyReport(count(COUNT_MISSING), count(COUNT_ORPHANED), count(COUNT_MISMATCHED)));
+    }
+
+    /**
+     * @return 바뀐 행 수 (지운 행 + 넣은 행)
+     */
+    public long backfill() {
+        long start = System.nanoTime();
+        Long minId = jdbcTemplate.queryForObject("select min(member_id) from member", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+
+        long changed = 0;
+        if (minId != null) {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + chunkSize, maxId + 1);
+                changed += transactionTemplate.execute(status -> sync(chunkFrom, chunkTo));
+            }
+        }
+        // member 범위 밖에 남은 행 (지워진 회원)
+        changed += transactionTemplate.execute(status -> jdbcTemplate.update(
+                "delete from member_team v where not exists (select 1 from member m where m.member_id = v.member_id)"));
+
+        log.info("member_team backfill finished: {} rows changed in {}ms", changed, (System.nanoTime() - start) / 1_000_000);
+        return changed;
+    }
+
+    private long sync(long from, long to) {
+        return jdbcTemplate.update(MemberTeamReadModel.DELETE_STALE, from, to)
+                + jdbcTemplate.update(MemberTeamReadModel.INSERT_MISSING, from, to);
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count != null ? count : 0;
+    }
+}
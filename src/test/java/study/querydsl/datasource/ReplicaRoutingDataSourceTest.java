@@ -0,0 +1,193 @@
+package study.querydsl.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 내장 H2 두 개를 primary / replica 로 쓴다.
+ * 복제는 SCRIPT -> RUNSCRIPT 로 primary 를 통째로 복사하는 것으로 흉내낸다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "datasource-routing.enabled=true",
+        "datasource-routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "datasource-routing.replicas[0].username=sa",
+        "datasource-routing.max-lag=10s",
+        "datasource-routing.lag-check-interval=1h",
+        "datasource-routing.sticky-after-write=1h"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    ReplicaSet replicaSet;
+
+    @Autowired
+    ReadYourWrites readYourWrites;
+
+    TransactionTemplate readOnly;
+    JdbcTemplate primary;
+    JdbcTemplate replica;
+
+    @BeforeEach
+    public void before() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        primary = new JdbcTemplate(replicaSet.getPrimary());
+        replica = new JdbcTemplate(replicaSet.getReplicas().get(0));
+
+        replicaSet.checkNow();
+        replicate();
+        replicaSet.checkNow();
+        readYourWrites.clear();
+
+        // replica 에만 있는 회원 -> 어느 쪽에서 읽었는지 구분
+        replica.update("insert into member (member_id, username, age) values (next value for member_seq, 'replicaOnly', 10)");
+    }
+
+    @Test
+    public void readOnlyToReplicaTest() {
+        assertThat(replicaSet.isEligible(0)).isTrue();
+
+        List<Member> fromReplica = readOnly.execute(status -> memberJpaRepository.findByUsername("replicaOnly"));
+        List<Member> fromPrimary = new TransactionTemplate(transactionManager)
+                .execute(status -> memberJpaRepository.findByUsername("replicaOnly"));
+
+        assertThat(fromReplica).hasSize(1);
+        assertThat(fromPrimary).isEmpty();
+    }
+
+    /**
+     * 검색 메서드는 트랜잭션 없이 호출해도 읽기 전용 트랜잭션이라 replica 로 간다.
+     */
+    @Test
+    public void searchToReplicaTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("replicaOnly");
+
+        assertThat(memberJpaRepository.search(condition)).hasSize(1);
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getContent()).hasSize(1);
+    }
+
+    /**
+     * 쓰기 커밋 후에는 같은 클라이언트(여기서는 스레드)의 읽기 전용 트랜잭션도 primary 로 간다.
+     */
+    @Test
+    public void readYourWritesTest() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.persist(new Member("written", 20)));
+
+        List<Member> written = readOnly.execute(status -> memberJpaRepository.findByUsername("written"));
+        List<Member> replicaOnly = readOnly.execute(status -> memberJpaRepository.findByUsername("replicaOnly"));
+
+        assertThat(written).hasSize(1);
+        assertThat(replicaOnly).isEmpty();
+    }
+
+    /**
+     * 웹 요청에서는 세션을 만들지 않고 쿠키로 다음 요청까지 primary 에 고정한다.
+     */
+    @Test
+    public void readYourWritesCookieTest() {
+        MockHttpServletRequest writeRequest = new MockHttpServletRequest();
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writeRequest, writeResponse));
+        try {
+            readYourWrites.markWrite();
+            assertThat(readYourWrites.isSticky()).isTrue();
+            assertThat(writeRequest.getSession(false)).isNull();
+
+            Cookie cookie = writeResponse.getCookie(ReadYourWrites.COOKIE_NAME);
+            assertThat(cookie).isNotNull();
+
+            MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+            nextRequest.setCookies(cookie);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(nextRequest, new MockHttpServletResponse()));
+            assertThat(readYourWrites.isSticky()).isTrue();
+
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+            assertThat(readYourWrites.isSticky()).isFalse();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    /**
+     * max-lag 보다 뒤처진 replica 는 빼고 primary 로 읽는다.
+     */
+    @Test
+    public void replicaLagTest() {
+        replica.update("update replication_heartbeat set beat = beat - 60000 where id = 1");
+        replicaSet.checkNow();
+
+        assertThat(replicaSet.isEligible(0)).isFalse();
+        assertThat(replicaSet.getLagMillis(0)).isGreaterThanOrEqualTo(60_000);
+
+        List<Member> members = readOnly.execute(status -> memberJpaRepository.findByUsername("replicaOnly"));
+        assertThat(members).isEmpty();
+    }
+
+    @Test
+    public void routeCountTest() {
+        ReplicaRoutingDataSource routing = unwrapRouting();
+        long before = routing.getRouteCounts().getOrDefault(ReplicaRoutingDataSource.replicaKey(0), 0L);
+
+        readOnly.execute(status -> memberJpaRepository.findByUsername("replicaOnly"));
+
+        assertThat(routing.getRouteCounts().get(ReplicaRoutingDataSource.replicaKey(0))).isEqualTo(before + 1);
+    }
+
+    private ReplicaRoutingDataSource unwrapRouting() {
+        try {
+            return dataSource.unwrap(ReplicaRoutingDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * primary 의 현재 상태를 replica 로 복사
+     */
+    private void replicate() {
+        List<String> script = primary.queryForList("script", String.class);
+        replica.execute("drop all objects");
+        for (String sql : script) {
+            replica.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Jackson 으로 MemberTeamDto 목록을 직렬화한 것과 바이트 단위로 같아야 한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberTeamJsonWriterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTeamJsonWriter memberTeamJsonWriter;
+
+    /**
+     * 이스케이프, 한글/이모지, null, 음수 - 버퍼를 작게 해서 값 중간에서 버퍼가 넘치게 한다.
+     */
+    @Test
+    public void sameAsJacksonTest() throws Exception {
+        List<MemberTeamDto> content = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(Long.MAX_VALUE, "\"quoted\" \\ back/slash", 0, null, null),
+                new MemberTeamDto(Long.MIN_VALUE, "tab\tnew\nline\r\b\f \u0001 \u001f", -1, -42L, "멤버 팀"),
+                new MemberTeamDto(0L, "emoji 😀 é ß 中", Integer.MAX_VALUE, 0L, ""),
+                new MemberTeamDto(7L, null, Integer.MIN_VALUE, 9L, repeat("긴이름", 100))
+        );
+        MemberTeamJsonWriter smallBuffer = new MemberTeamJsonWriter(64, 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        smallBuffer.writeAll(out, content);
+
+        System.out.println("json = " + new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(content));
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memberTeamJsonWriter.writeAll(out, Collections.emptyList());
+
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("[]");
+    }
+
+    /**
+     * searchRows -> writer 와 search -> Jackson 의 결과가 같다.
+     */
+    @Test
+    public void searchRowsTest() throws Exception {
+        Team teamA = new Team("jsonTeamA");
+        em.persist(teamA);
+        for (int i = 0; i < 50; i++) {
+            em.persist(new Member("json\"member" + i, i, i % 5 == 0 ? null : teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(49);
+        condition.setAgeGoe(0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows;
+        try (MemberTeamJsonWriter.Rows writer = memberTeamJsonWriter.open(out)) {
+            memberJpaRepository.searchRows(condition, writer);
+            writer.finish();
+            rows = writer.getCount();
+        }
+
+        assertThat(rows).isGreaterThanOrEqualTo(50);
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(memberJpaRepository.search(condition)));
+    }
+
+    private static String repeat(String value, int times) {
+        List<String> parts = new ArrayList<>(Collections.nCopies(times, value));
+        return String.join("", parts);
+    }
+}
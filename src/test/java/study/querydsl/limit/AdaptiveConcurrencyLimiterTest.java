@@ -0,0 +1,177 @@
+package study.querydsl.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "search-limit.retry-after=2s",
+        "search-limit.expensive.initial-limit=2",
+        "search-limit.expensive.max-queue=0"
+})
+@AutoConfigureMockMvc
+class AdaptiveConcurrencyLimiterTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SearchLimiter searchLimiter;
+
+    /**
+     * 비싼 검색 자리가 다 차면 503 + Retry-After, 싼 검색(username)은 따로 제한하므로 그대로 통과한다.
+     */
+    @Test
+    public void shedTest() throws Exception {
+        AdaptiveConcurrencyLimiter expensive = searchLimiter.limiter(new MemberSearchCondition());
+        List<AdaptiveConcurrencyLimiter.Permit> held = new ArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit permit;
+        while ((permit = expensive.tryAcquire()) != null) {
+            held.add(permit);
+        }
+
+        try {
+            mockMvc.perform(get("/v1/memberSearch"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "2"));
+            mockMvc.perform(get("/v1/memberSearch").param("username", "member1"))
+                    .andExpect(status().isOk());
+        } finally {
+            held.forEach(expensive::release);
+        }
+
+        mockMvc.perform(get("/v1/memberSearch").param("teamname", "teamA"))
+                .andExpect(status().isOk());
+        System.out.println("stats = " + searchLimiter.stats());
+    }
+
+    @Test
+    public void classifyTest() {
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member1");
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamname("teamA");
+
+        assertThat(SearchClass.of(byUsername)).isEqualTo(SearchClass.CHEAP);
+        assertThat(SearchClass.of(byTeam)).isEqualTo(SearchClass.EXPENSIVE);
+        assertThat(SearchClass.of(new MemberSearchCondition())).isEqualTo(SearchClass.EXPENSIVE);
+    }
+
+    /**
+     * 느린 응답마다 제한 x 0.5 (min 까지), 빠른 응답은 제한을 절반 이상 쓰고 있을 때만 +1
+     */
+    @Test
+    public void aimdTest() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", limit(8, 1, 10, 0), clock::get);
+
+        limiter.release(acquireAndAdvance(limiter, clock, 200));
+        assertThat(limiter.stats().getLimit()).isEqualTo(4);
+        limiter.release(acquireAndAdvance(limiter, clock, 200));
+        limiter.release(acquireAndAdvance(limiter, clock, 200));
+        limiter.release(acquireAndAdvance(limiter, clock, 200));
+        assertThat(limiter.stats().getLimit()).isEqualTo(1);
+
+        // 제한 1 을 다 쓰고 있었으므로 늘린다.
+        limiter.release(acquireAndAdvance(limiter, clock, 10));
+        assertThat(limiter.stats().getLimit()).isEqualTo(2);
+
+        // 제한 4 중에 하나만 쓰고 있었으면 빨라도 늘리지 않는다.
+        AdaptiveConcurrencyLimiter idle = new AdaptiveConcurrencyLimiter("idle", limit(4, 1, 10, 0), clock::get);
+        idle.release(acquireAndAdvance(idle, clock, 10));
+        assertThat(idle.stats().getLimit()).isEqualTo(4);
+        assertThat(limiter.stats().getSlowResponses()).isEqualTo(4);
+    }
+
+    /**
+     * 스트리밍처럼 걸린 시간을 재지 않는 요청은 자리만 돌려주고 제한은 그대로 둔다.
+     */
+    @Test
+    public void releaseUnmeasuredTest() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("stream", limit(1, 1, 10, 0), clock::get);
+
+        limiter.releaseUnmeasured(acquireAndAdvance(limiter, clock, 60_000));
+
+        assertThat(limiter.stats().getLimit()).isEqualTo(1);
+        assertThat(limiter.stats().getInFlight()).isZero();
+        assertThat(limiter.stats().getSlowResponses()).isZero();
+    }
+
+    /**
+     * markDone 이후(응답 쓰기)에 걸린 시간은 제한 조정에 들어가지 않는다.
+     */
+    @Test
+    public void markDoneTest() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("direct", limit(1, 1, 10, 0), clock::get);
+
+        AdaptiveConcurrencyLimiter.Permit permit = acquireAndAdvance(limiter, clock, 10);
+        limiter.markDone(permit);
+        clock.addAndGet(Duration.ofMillis(60_000).toNanos());
+        limiter.release(permit);
+
+        assertThat(limiter.stats().getSlowResponses()).isZero();
+        assertThat(limiter.stats().getLimit()).isEqualTo(2);
+    }
+
+    /**
+     * 자리가 없으면 queue-timeout 동안 기다리고, 그 사이에 자리가 나면 들어간다.
+     */
+    @Test
+    public void queueTest() throws Exception {
+        AdaptiveConcurrencyLimiter shortWait = new AdaptiveConcurrencyLimiter("short", limit(1, 1, 1, 1, 10), System::nanoTime);
+        assertThat(shortWait.tryAcquire()).isNotNull();
+        assertThat(shortWait.tryAcquire()).isNull();
+        assertThat(shortWait.stats().getRejected()).isEqualTo(1);
+
+        AdaptiveConcurrencyLimiter longWait = new AdaptiveConcurrencyLimiter("long", limit(1, 1, 1, 1, 5000), System::nanoTime);
+        AdaptiveConcurrencyLimiter.Permit first = longWait.tryAcquire();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            longWait.release(first);
+        });
+        releaser.start();
+        AdaptiveConcurrencyLimiter.Permit second = longWait.tryAcquire();
+        releaser.join();
+
+        assertThat(second).isNotNull();
+        assertThat(longWait.stats().getQueued()).isEqualTo(1);
+        assertThat(longWait.stats().getRejected()).isZero();
+    }
+
+    private static AdaptiveConcurrencyLimiter.Permit acquireAndAdvance(AdaptiveConcurrencyLimiter limiter,
+                                                                       AtomicLong clock, long millis) throws InterruptedException {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        clock.addAndGet(Duration.ofMillis(millis).toNanos());
+        return permit;
+    }
+
+    private static SearchLimitProperties.Limit limit(int initial, int min, int max, int maxQueue) {
+        return limit(initial, min, max, maxQueue, 10);
+    }
+
+    private static SearchLimitProperties.Limit limit(int initial, int min, int max, int maxQueue, long queueTimeoutMillis) {
+        SearchLimitProperties.Limit limit = new SearchLimitProperties.Limit(initial, min, max, Duration.ofMillis(100),
+                maxQueue, Duration.ofMillis(queueTimeoutMillis));
+        limit.setBackoffRatio(0.5);
+        return limit;
+    }
+}
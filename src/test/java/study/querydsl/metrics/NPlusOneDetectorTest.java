@@ -0,0 +1,81 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * N+1 감지를 확인하려고 batch fetch 는 끈다. (BatchFetchTest 참고)
+ */
+@SpringBootTest(properties = {
+        "query-guard.strict=true",
+        "query-guard.same-shape-threshold=5",
+        "query-guard.lazy-load-threshold=5",
+        "batch-fetch.default-size=1"
+})
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+
+    /**
+     * N+1 - 회원마다 팀 프록시를 초기화하면 strict 모드에서 실패한다.
+     */
+    @Test
+    public void lazyLoadStormTest() {
+        persistMembersInOwnTeam(6);
+
+        List<Member> members = memberJpaRepository.findAll_querydsl().stream()
+                .filter(m -> m.getUsername().startsWith("lazy"))
+                .collect(Collectors.toList());
+
+        assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getTeamname()))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    /**
+     * fetch join 으로 한 번에 가져오면 지연 로딩이 일어나지 않는다.
+     */
+    @Test
+    public void fetchJoinTest() {
+        persistMembersInOwnTeam(6);
+
+        try (QueryScope scope = nPlusOneDetector.open("fetchJoinTest")) {
+            List<Member> members = em.createQuery("select m from Member m join fetch m.team where m.username like 'lazy%'", Member.class)
+                    .getResultList();
+            members.forEach(m -> m.getTeam().getTeamname());
+
+            assertThat(members).hasSize(6);
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+            assertThat(scope.getLazyLoadCount()).isZero();
+        }
+    }
+
+    private void persistMembersInOwnTeam(int count) {
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("lazyTeam" + i);
+            em.persist(team);
+            em.persist(new Member("lazy" + i, 20 + i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsRegistryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    QueryMetricsRegistry queryMetricsRegistry;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("metricsTeamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("metrics" + i, 20 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+        queryMetricsRegistry.reset();
+    }
+
+    /**
+     * 리포지토리 메소드와 SQL 모양 양쪽에 실행 횟수와 조회 행 수가 남는다.
+     */
+    @Test
+    public void recordTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("metricsTeamA");
+
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+        memberJpaRepository.search(condition);
+        assertThat(result).hasSize(5);
+
+        QueryMetricsSnapshot repository = find(queryMetricsRegistry.repositories(), "MemberJpaRepository.search");
+        assertThat(repository.getCount()).isEqualTo(2);
+        assertThat(repository.getStatements()).isEqualTo(2);
+        assertThat(repository.getRows()).isEqualTo(10);
+
+        QueryMetricsSnapshot statement = queryMetricsRegistry.statements().stream()
+                .filter(s -> s.getName().startsWith("select"))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertThat(statement.getCount()).isEqualTo(2);
+        assertThat(statement.getRows()).isEqualTo(10);
+        assertThat(statement.getP99Millis()).isLessThanOrEqualTo(statement.getMaxMillis());
+
+        for (QueryMetricsSnapshot snapshot : queryMetricsRegistry.statements()) {
+            System.out.println("snapshot = " + snapshot.getName() + " count=" + snapshot.getCount() + " rows=" + snapshot.getRows());
+        }
+    }
+
+    @Test
+    public void normalizeTest() {
+        String sql = "/* select member */ select m.id from member m\n where m.age >= 10 and m.username = 'kim''s'"
+                + " and m.team_id in (?, ?, ?) and member0_.id > ?";
+
+        assertThat(SqlNormalizer.normalize(sql))
+                .isEqualTo("select m.id from member m where m.age >= ? and m.username = ? and m.team_id in (?) and member0_.id > ?");
+    }
+
+    private static QueryMetricsSnapshot find(List<QueryMetricsSnapshot> snapshots, String name) {
+        return snapshots.stream()
+                .filter(s -> s.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no metrics for " + name));
+    }
+}
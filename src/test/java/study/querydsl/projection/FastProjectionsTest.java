@@ -0,0 +1,106 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.userDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void init() {
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        em.persist(new Member("멤버1", 10, teamA));
+        em.persist(new Member("멤버2", 20, teamA));
+        em.persist(new Member(null, 30, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * setter 접근 - Projections.bean 과 같은 결과
+     */
+    @Test
+    public void beanTest() {
+        List<MemberDto> expected = queryFactory.select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+        List<MemberDto> result = queryFactory.select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(expected);
+        assertThat(result).extracting("username").containsExactly("멤버1", "멤버2", null);
+    }
+
+    /**
+     * 필드 접근 + 별칭 (DTO 필드명과 entity 필드명이 다를 경우)
+     */
+    @Test
+    public void fieldsAliasTest() {
+        List<userDto> result = queryFactory.select(FastProjections.fields(userDto.class,
+                        member.username.as("name"),
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).containsExactly(new userDto("멤버1", 10), new userDto("멤버2", 20), new userDto(null, 30));
+    }
+
+    /**
+     * 생성자 접근
+     */
+    @Test
+    public void constructorTest() {
+        List<MemberTeamDto> result = queryFactory.select(FastProjections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.teamname))
+                .from(member)
+                .join(member.team, team)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(result).extracting("age").containsExactly(10, 20, 30);
+        assertThat(result).extracting("teamname").containsOnly("TeamA");
+    }
+
+    @Test
+    public void unknownPropertyTest() {
+        assertThatThrownBy(() -> FastProjections.bean(MemberDto.class, member.username.as("nickname")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FastProjections.constructor(MemberDto.class, member.age, member.username))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.NPlusOneDetector;
+import study.querydsl.metrics.QueryScope;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 팀 25개, 팀마다 회원 2명 - 연관관계별 batch size 10 이면 25 번의 지연 로딩이 3 번의 IN 쿼리가 된다.
+ * (strict 모드라 N+1 이 남아 있으면 QueryBudgetExceededException 으로 실패한다)
+ */
+@SpringBootTest(properties = {
+        "batch-fetch.default-size=1",
+        "batch-fetch.member-team=10",
+        "batch-fetch.team-members=10",
+        "query-guard.strict=true",
+        "query-guard.same-shape-threshold=5",
+        "query-guard.lazy-load-threshold=5"
+})
+@Transactional
+class BatchFetchTest {
+
+    private static final int TEAMS = 25;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < TEAMS; i++) {
+            Team team = new Team("batchTeam" + i);
+            em.persist(team);
+            em.persist(new Member("batchA" + i, i, team));
+            em.persist(new Member("batchB" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+    }
+
+    /**
+     * Member.team - 회원 50명을 읽고 팀 25개를 초기화 : 회원 1 + 팀 ceil(25 / 10) = 4
+     */
+    @Test
+    public void memberTeamTest() {
+        try (QueryScope scope = nPlusOneDetector.open("memberTeamTest")) {
+            List<Member> members = em.createQuery("select m from Member m where m.username like 'batch%'", Member.class)
+                    .getResultList();
+            members.forEach(m -> m.getTeam().getTeamname());
+
+            assertThat(members).hasSize(TEAMS * 2);
+            assertThat(scope.getStatementCount()).isEqualTo(1 + 3);
+            System.out.println("statements = " + scope.getStatementCount() + ", lazy loads = " + scope.getLazyLoadCount());
+        }
+    }
+
+    /**
+     * Team.members - 팀 25개를 읽고 회원 컬렉션 25개를 초기화 : 팀 1 + 컬렉션 ceil(25 / 10) = 4
+     */
+    @Test
+    public void teamMembersTest() {
+        try (QueryScope scope = nPlusOneDetector.open("teamMembersTest")) {
+            List<Team> teams = em.createQuery("select t from Team t where t.teamname like 'batchTeam%'", Team.class)
+                    .getResultList();
+            int members = teams.stream().mapToInt(t -> t.getMembers().size()).sum();
+
+            assertThat(teams).hasSize(TEAMS);
+            assertThat(members).isEqualTo(TEAMS * 2);
+            assertThat(scope.getStatementCount()).isEqualTo(1 + 3);
+            System.out.println("statements = " + scope.getStatementCount() + ", lazy loads = " + scope.getLazyLoadCount());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * chunk 마다 새 트랜잭션으로 커밋되므로 @Transactional 을 쓰지 않고 직접 지운다.
+ */
+@SpringBootTest(properties = "member.bulk-load.chunk-size=100")
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'bulk%'").executeUpdate();
+            em.createQuery("delete from Team t where t.teamname like 'bulkTeam%'").executeUpdate();
+        });
+    }
+
+    /**
+     * chunk 단위로 나눠 저장해도 모든 회원이 팀과 함께 저장된다.
+     */
+    @Test
+    public void loadTest() {
+        MemberBulkLoader.Result result = memberBulkLoader.load(Arrays.asList("bulkTeamA", "bulkTeamB"), 250,
+                i -> new MemberBulkLoader.Row("bulk" + i, (int) (i % 50), i % 2 == 0 ? "bulkTeamA" : "bulkTeamB"));
+
+        assertThat(result.getMembers()).isEqualTo(250);
+        assertThat(result.getTeams()).isEqualTo(2);
+        // chunk-size=100 -> 100, 100, 50
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getRowsPerSecond()).isPositive();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("bulkTeamA");
+        assertThat(memberJpaRepository.search(condition)).hasSize(125);
+    }
+
+    /**
+     * 트랜잭션 안에서 호출해도 호출한 쪽의 영속성 컨텍스트는 clear 되지 않는다.
+     */
+    @Test
+    public void callerPersistenceContextTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member("bulkCaller", 10);
+            em.persist(member);
+
+            memberBulkLoader.load(Arrays.asList("bulkTeamA"), 150,
+                    i -> new MemberBulkLoader.Row("bulk" + i, 10, "bulkTeamA"));
+
+            assertThat(em.contains(member)).isTrue();
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("bulkTeamA");
+        assertThat(memberJpaRepository.search(condition)).hasSize(150);
+    }
+
+    @Test
+    public void unknownTeamTest() {
+        assertThatThrownBy(() -> memberBulkLoader.load(Arrays.asList("bulkTeamA"), 1,
+                i -> new MemberBulkLoader.Row("bulk" + i, 10, "noSuchTeam")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.cache.MemberCountCache;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberBulkUpdaterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberCountCache countCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Member young;
+    Member old;
+
+    @BeforeEach
+    public void before() {
+        countCache.invalidateAll();
+
+        Team team = new Team("bulkTeam");
+        em.persist(team);
+        young = new Member("bulkYoung", 10, team);
+        old = new Member("bulkOld", 50, team);
+        em.persist(young);
+        em.persist(old);
+        em.persist(new Member("bulkNoTeam", 15));
+        em.flush();
+    }
+
+    /**
+     * em.clear() 없이도 영속성 컨텍스트의 회원이 바뀐 값을 보고, 걸리지 않은 회원은 그대로 남는다.
+     */
+    @Test
+    public void refreshTest() {
+        long count = memberJpaRepository.bulkUpdate(member.age.lt(20).and(member.username.startsWith("bulk")),
+                update -> update.set(member.age, member.age.add(1)), MemberBulkUpdater.Mode.REFRESH);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(em.contains(young)).isTrue();
+        assertThat(young.getAge()).isEqualTo(11);
+        assertThat(em.contains(old)).isTrue();
+        assertThat(old.getAge()).isEqualTo(50);
+    }
+
+    @Test
+    public void evictTest() {
+        memberJpaRepository.bulkUpdate(member.age.lt(20).and(member.username.startsWith("bulk")),
+                update -> update.set(member.age, member.age.add(1)), MemberBulkUpdater.Mode.EVICT);
+
+        assertThat(em.contains(young)).isFalse();
+        assertThat(em.contains(old)).isTrue();
+        assertThat(em.find(Member.class, young.getId()).getAge()).isEqualTo(11);
+    }
+
+    /**
+     * 걸린 행에 해당하는 카운트 캐시만 지우고, 나머지는 남긴다.
+     */
+    @Test
+    public void cacheInvalidationTest() {
+        MemberSearchCondition youngCondition = new MemberSearchCondition();
+        youngCondition.setAgeLoe(20);
+        MemberSearchCondition oldCondition = new MemberSearchCondition();
+        oldCondition.setAgeGoe(40);
+        // 쓰기 트랜잭션 안의 get 은 캐시에 넣지 않으므로 별도 읽기 전용 트랜잭션에서 채운다.
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            countCache.get(youngCondition, () -> 2L);
+            countCache.get(oldCondition, () -> 1L);
+        });
+
+        memberJpaRepository.bulkUpdate(member.username.eq("bulkYoung"),
+                update -> update.set(member.age, 12), MemberBulkUpdater.Mode.REFRESH);
+
+        assertThat(countCache.getIfPresent(youngCondition)).isNull();
+        assertThat(countCache.getIfPresent(oldCondition)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,147 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.BulkUpdateCheckpoint;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * chunk 마다 커밋되므로 데이터를 커밋해 두고 테스트한다. (@Transactional 을 쓰지 않음)
+ */
+@SpringBootTest(properties = {
+        "member.bulk-update.chunk-size=10",
+        "member.bulk-update.target-chunk-time=1h",
+        "member.bulk-update.pause=0ms"
+})
+class MemberChunkedUpdaterTest {
+
+    private static final String TEAM = "chunkedTeam";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberChunkedUpdater memberChunkedUpdater;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        memberBulkLoader.load(Collections.singletonList(TEAM), 95,
+                i -> new MemberBulkLoader.Row("chunked" + i, 10, TEAM));
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'chunked%'").executeUpdate();
+            em.createQuery("delete from Team t where t.teamname = :teamname")
+                    .setParameter("teamname", TEAM)
+                    .executeUpdate();
+            em.createQuery("delete from BulkUpdateCheckpoint c").executeUpdate();
+        });
+    }
+
+    @Test
+    public void updateTest() {
+        List<MemberChunkedUpdater.Progress> progress = new ArrayList<>();
+
+        MemberChunkedUpdater.Result result = memberChunkedUpdater.update("chunked-age", member.username.startsWith("chunked"),
+                update -> update.set(member.age, member.age.add(1)), progress::add);
+
+        assertThat(result.getUpdatedRows()).isEqualTo(95);
+        assertThat(result.isResumed()).isFalse();
+        assertThat(progress).isNotEmpty();
+        assertThat(progress.get(progress.size() - 1).isCompleted()).isTrue();
+        assertThat(ages()).containsOnly(11);
+        System.out.println("result = " + result);
+    }
+
+    /**
+     * 중간에 실패해도 같은 jobName 으로 다시 실행하면 커밋된 chunk 는 건너뛰고 이어간다. (두 번 더해지지 않는다)
+     */
+    @Test
+    public void resumeTest() {
+        assertThatThrownBy(() -> memberChunkedUpdater.update("chunked-resume", member.username.startsWith("chunked"),
+                update -> update.set(member.age, member.age.add(1)),
+                progress -> {
+                    if (progress.getChunks() == 3) {
+                        throw new IllegalStateException("stop");
+                    }
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        BulkUpdateCheckpoint checkpoint = transactionTemplate.execute(status ->
+                em.find(BulkUpdateCheckpoint.class, "chunked-resume"));
+        assertThat(checkpoint.isCompleted()).isFalse();
+        assertThat(checkpoint.getChunks()).isEqualTo(3);
+
+        MemberChunkedUpdater.Result result = memberChunkedUpdater.update("chunked-resume", member.username.startsWith("chunked"),
+                update -> update.set(member.age, member.age.add(1)));
+
+        assertThat(result.isResumed()).isTrue();
+        assertThat(result.getTotalUpdatedRows()).isEqualTo(95);
+        assertThat(ages()).containsOnly(11);
+    }
+
+    /**
+     * id 가 듬성듬성해도 chunk 마다 chunk-size 명씩 - 빈 chunk 가 없다.
+     */
+    @Test
+    public void sparseIdTest() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery(
+                "delete from Member m where m.username like 'chunked%' and mod(m.id, 5) <> 0").executeUpdate());
+        long members = transactionTemplate.execute(status -> em.createQuery(
+                "select count(m) from Member m", Long.class).getSingleResult());
+
+        MemberChunkedUpdater.Result result = memberChunkedUpdater.update("chunked-sparse", member.username.startsWith("chunked"),
+                update -> update.set(member.age, member.age.add(1)));
+
+        System.out.println("members = " + members + ", result = " + result);
+        assertThat(result.getChunks()).isEqualTo((members + 9) / 10);
+        assertThat(ages()).containsOnly(11);
+    }
+
+    /**
+     * 같은 jobName 을 다른 where 로 이어서 실행할 수 없다.
+     */
+    @Test
+    public void resumeWithDifferentPredicateTest() {
+        assertThatThrownBy(() -> memberChunkedUpdater.update("chunked-predicate", member.username.startsWith("chunked"),
+                update -> update.set(member.age, member.age.add(1)),
+                progress -> {
+                    throw new IllegalStateException("stop");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThatThrownBy(() -> memberChunkedUpdater.update("chunked-predicate", member.username.startsWith("chunked1"),
+                update -> update.set(member.age, member.age.add(1))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Integer> ages() {
+        return transactionTemplate.execute(status -> em.createQuery(
+                        "select m.age from Member m where m.username like 'chunked%'", Integer.class)
+                .getResultList());
+    }
+}
@@ -14,8 +14,10 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -106,4 +108,56 @@ class MemberJpaRepositoryTest {
         assertThat(result3.getSize()).isEqualTo(3);
         assertThat(result3.getContent()).extracting("username").containsExactly("member1","member2", "member3");
     }
-}
\ No newline at end of file
+
+    /**
+     * 카운트 쿼리 - 팀 조건 유무와 관계없이 전체 건수가 맞아야 한다.
+     */
+    @Test
+    public void searchPageComplex_countTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 20 + i, teamA));
+        }
+        em.persist(new Member("noTeam", 30));
+
+        // 팀 조건 없음 -> 팀 없는 회원까지 포함
+        MemberSearchCondition noTeamCondition = new MemberSearchCondition();
+        Page<MemberTeamDto> all = memberRepository.searchPageComplex(noTeamCondition, PageRequest.of(0, 2));
+        assertThat(all.getTotalElements()).isEqualTo(6);
+        assertThat(all.getContent().size()).isEqualTo(2);
+
+        // 팀 조건 있음
+        MemberSearchCondition teamCondition = new MemberSearchCondition();
+        teamCondition.setTeamname("teamA");
+        teamCondition.setAgeGoe(22);
+        Page<MemberTeamDto> teamPage = memberRepository.searchPageComplex(teamCondition, PageRequest.of(0, 2));
+        assertThat(teamPage.getTotalElements()).isEqualTo(3);
+    }
+
+    /**
+     * 스트리밍 조회 - search 와 같은 결과를 한 건씩 넘겨준다.
+     */
+    @Test
+    public void searchStreamTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, 20 + i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+        condition.setAgeLoe(24);
+
+        List<MemberTeamDto> streamed = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, 2, streamed::add);
+
+        assertThat(streamed).extracting("username")
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition).stream()
+                        .map(MemberTeamDto::getUsername)
+                        .collect(Collectors.toList()));
+        assertThat(streamed.size()).isEqualTo(5);
+    }
+}
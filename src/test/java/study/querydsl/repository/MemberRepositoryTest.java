@@ -1,16 +1,28 @@
 package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursorSlice;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.NPlusOneDetector;
+import study.querydsl.metrics.QueryScope;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Assertions;
 
@@ -18,9 +30,15 @@ import org.junit.jupiter.api.Assertions;
 @Transactional
 class MemberRepositoryTest {
 
+    @Autowired
+    EntityManager em;
+
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+
     @Test
     public void basicTest() {
 
@@ -36,4 +54,110 @@ class MemberRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * 커서 기반 페이징 - 모든 페이지를 순서대로 끝까지 읽는다.
+     */
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, 20 + i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MemberCursorSlice slice = memberRepository.searchSlice(condition, cursor, 2);
+            slice.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(usernames).containsExactly("member0", "member2", "member4", "member6", "member8");
+    }
+
+    /**
+     * offset 슬라이스 - 카운트 쿼리 없이 데이터 쿼리 한 번으로 다음 페이지 여부를 안다.
+     */
+    @Test
+    public void searchSliceNoCountTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 20 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("teamA");
+
+        try (QueryScope scope = nPlusOneDetector.open("searchSliceNoCountTest")) {
+            Slice<MemberTeamDto> first = memberRepository.searchSliceNoCount(condition, PageRequest.of(0, 2));
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+            assertThat(first.getContent()).hasSize(2);
+            assertThat(first.hasNext()).isTrue();
+        }
+
+        Slice<MemberTeamDto> exact = memberRepository.searchSliceNoCount(condition, PageRequest.of(0, 5));
+        assertThat(exact.getContent()).hasSize(5);
+        assertThat(exact.hasNext()).isFalse();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSliceNoCount(condition, PageRequest.of(2, 2));
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+        System.out.println("last = " + last.getContent());
+    }
+
+    @Test
+    public void searchSlice_invalidCursor() {
+        assertThatThrownBy(() -> memberRepository.searchSlice(new MemberSearchCondition(), "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 커서 기반 페이징과 offset 페이징은 깊은 페이지까지 같은 행을 같은 순서로 돌려준다.
+     * (깊이에 따른 응답시간 비교는 MemberPagingBenchmark)
+     */
+    @Test
+    public void searchSlice_sameAsOffset() {
+        int total = 105;
+        int size = 20;
+        Team team = new Team("deepPageTeam");
+        em.persist(team);
+        for (int i = 0; i < total; i++) {
+            em.persist(new Member("deepPage" + i, i % 100, team));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("deepPageTeam");
+
+        List<Long> byCursor = new ArrayList<>();
+        String cursor = null;
+        int page = 0;
+        do {
+            MemberCursorSlice slice = memberRepository.searchSlice(condition, cursor, size);
+            List<MemberTeamDto> byOffset = memberRepository.searchPageComplex(condition, PageRequest.of(page, size)).getContent();
+            assertThat(slice.getContent()).extracting("memberId")
+                    .containsExactlyElementsOf(byOffset.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList()));
+            slice.getContent().forEach(dto -> byCursor.add(dto.getMemberId()));
+            cursor = slice.getNextCursor();
+            page++;
+        } while (cursor != null);
+
+        assertThat(page).isEqualTo(6);
+        assertThat(byCursor).hasSize(total).doesNotHaveDuplicates();
+    }
+
+}
@@ -0,0 +1,206 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * loader 를 latch 로 붙잡아 두고 같은 조건의 요청을 동시에 보낸다. (트랜잭션 밖에서 실행)
+ */
+@SpringBootTest
+class MemberSearchCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 조건이 같으면 (빈 문자열 = 조건 없음) 한 번만 조회하고 모두 같은 결과를 받는다.
+     */
+    @Test
+    public void coalesceTest() throws Exception {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<MemberTeamDto> rows = Collections.singletonList(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+
+        List<Future<List<MemberTeamDto>>> results = submitAll(coalescer, i -> {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamname("teamA");
+            condition.setUsername(i % 2 == 0 ? "" : null);
+            return condition;
+        }, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return rows;
+        });
+
+        waitUntilCoalesced(coalescer, CALLERS - 1);
+        release.countDown();
+
+        for (Future<List<MemberTeamDto>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).extracting("username").containsExactly("member1");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalescer.stats().getExecutions()).isEqualTo(1);
+        assertThat(coalescer.stats().getCoalesced()).isEqualTo(CALLERS - 1);
+        assertThat(coalescer.stats().getInFlight()).isZero();
+        System.out.println("stats = " + coalescer.stats());
+    }
+
+    /**
+     * 조회가 실패하면 기다리던 요청 모두 같은 예외를 받고, 다음 요청은 다시 조회한다.
+     */
+    @Test
+    public void errorTest() throws Exception {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        List<Future<List<MemberTeamDto>>> results = submitAll(coalescer, i -> new MemberSearchCondition(), () -> {
+            await(release);
+            throw failure;
+        });
+
+        waitUntilCoalesced(coalescer, CALLERS - 1);
+        release.countDown();
+
+        for (Future<List<MemberTeamDto>> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCause(failure);
+        }
+        assertThat(coalescer.stats().getFailures()).isEqualTo(1);
+        assertThat(coalescer.search(new MemberSearchCondition(), Collections::emptyList)).isEmpty();
+    }
+
+    /**
+     * wait-timeout 이 지나면 기다리지 않고 직접 조회한다.
+     */
+    @Test
+    public void timeoutTest() throws Exception {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        List<MemberTeamDto> slow = Collections.singletonList(new MemberTeamDto(1L, "slow", 10, null, null));
+
+        Future<List<MemberTeamDto>> leader = executor.submit(() -> coalescer.search(new MemberSearchCondition(), () -> {
+            await(release);
+            return slow;
+        }));
+        while (coalescer.stats().getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        List<MemberTeamDto> direct = coalescer.search(new MemberSearchCondition(), Collections::emptyList);
+        release.countDown();
+
+        assertThat(direct).isEmpty();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).extracting("username").containsExactly("slow");
+        assertThat(coalescer.stats().getTimeouts()).isEqualTo(1);
+    }
+
+    /**
+     * 컬럼 배열 검색(JSON 으로 바로 쓰는 경로)도 합친다. DTO 검색과는 따로 합친다.
+     */
+    @Test
+    public void rowsTest() throws Exception {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Object[]> rows = Collections.singletonList(new Object[]{1L, "member1", 10, 1L, "teamA"});
+
+        Future<List<Object[]>> leader = executor.submit(() -> coalescer.rows(new MemberSearchCondition(), () -> {
+            loads.incrementAndGet();
+            await(release);
+            return rows;
+        }));
+        while (coalescer.stats().getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+        Future<List<Object[]>> waiter = executor.submit(() -> coalescer.rows(new MemberSearchCondition(), () -> {
+            loads.incrementAndGet();
+            return rows;
+        }));
+        waitUntilCoalesced(coalescer, 1);
+
+        // DTO 검색은 컬럼 배열 조회를 기다리지 않는다.
+        assertThat(coalescer.search(new MemberSearchCondition(), Collections::emptyList)).isEmpty();
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).hasSize(1);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isSameAs(leader.get());
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 합치지 않는다.
+     */
+    @Test
+    public void writeTransactionTest() {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, Duration.ofSeconds(10));
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertThat(readWrite.execute(status -> coalescer.canCoalesce())).isFalse();
+        assertThat(readOnly.execute(status -> coalescer.canCoalesce())).isTrue();
+        assertThat(coalescer.canCoalesce()).isTrue();
+        assertThat(new MemberSearchCoalescer(false, Duration.ofSeconds(10)).canCoalesce()).isFalse();
+    }
+
+    private List<Future<List<MemberTeamDto>>> submitAll(MemberSearchCoalescer coalescer,
+                                                        IntFunction<MemberSearchCondition> conditions,
+                                                        Supplier<List<MemberTeamDto>> loader) {
+        List<Future<List<MemberTeamDto>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            MemberSearchCondition condition = conditions.apply(i);
+            results.add(executor.submit(() -> coalescer.search(condition, loader)));
+        }
+        return results;
+    }
+
+    private static void waitUntilCoalesced(MemberSearchCoalescer coalescer, long waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.stats().getCoalesced() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
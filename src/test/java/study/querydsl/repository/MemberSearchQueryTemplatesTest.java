@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryTemplatesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchQueryTemplates searchQueryTemplates;
+
+    @BeforeEach
+    public void init() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + (i % 5), 20 + i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("member0", 25));
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 16가지 조건 조합 모두 BooleanBuilder 동적쿼리와 같은 결과
+     */
+    @Test
+    public void allShapesTest() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = condition(shape);
+            assertThat(MemberSearchQueryTemplates.shapeOf(condition)).isEqualTo(shape);
+
+            List<Long> expected = memberIds(memberJpaRepository.searchByBuilder(condition));
+            List<Long> actual = memberIds(searchQueryTemplates.search(condition));
+
+            assertThat(actual).as("shape %d", shape).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    private static MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & 1) != 0) {
+            condition.setUsername("member0");
+        }
+        if ((shape & 2) != 0) {
+            condition.setTeamname("teamA");
+        }
+        if ((shape & 4) != 0) {
+            condition.setAgeGoe(22);
+        }
+        if ((shape & 8) != 0) {
+            condition.setAgeLoe(35);
+        }
+        return condition;
+    }
+
+    private static List<Long> memberIds(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 카운트는 다른 스레드/커넥션에서 실행되므로 데이터를 커밋해 두고 테스트한다. (@Transactional 을 쓰지 않음)
+ */
+@SpringBootTest(properties = {
+        "member.search.parallel-count.enabled=true",
+        "member.search.count-cache.enabled=false"
+})
+class ParallelCountExecutorTest {
+
+    private static final List<String> TEAMS = Arrays.asList("parallelTeamA", "parallelTeamB");
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ParallelCountExecutor parallelCountExecutor;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        memberBulkLoader.load(TEAMS, 120,
+                i -> new MemberBulkLoader.Row("parallel" + i, (int) (i % 40), TEAMS.get((int) (i % 2))));
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id in (select t.id from Team t where t.teamname in :teamnames)")
+                    .setParameter("teamnames", TEAMS)
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.teamname in :teamnames")
+                    .setParameter("teamnames", TEAMS)
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void parallelCountTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("parallelTeamA");
+        long before = parallelCountExecutor.getParallelCount();
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(10);
+        assertThat(result.getTotalElements()).isEqualTo(60);
+        assertThat(parallelCountExecutor.getParallelCount()).isEqualTo(before + 1);
+    }
+
+    /**
+     * 마지막 페이지는 데이터만으로 전체 건수를 알 수 있으므로 카운트 결과를 기다리지 않는다.
+     */
+    @Test
+    public void lastPageTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("parallelTeamA");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(5, 11));
+
+        assertThat(result.getContent()).hasSize(5);
+        assertThat(result.getTotalElements()).isEqualTo(60);
+    }
+
+    /**
+     * 카운트가 필요 없으면 아직 실행 중인 카운트를 취소한다.
+     */
+    @Test
+    public void cancelTest() {
+        long before = parallelCountExecutor.getCancelledCount();
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+
+        Page<Integer> result = parallelCountExecutor.getPage(() -> {
+            await(countStarted);
+            return Arrays.asList(1, 2, 3);
+        }, PageRequest.of(0, 10), () -> {
+            countStarted.countDown();
+            await(never);
+            return 100;
+        });
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(parallelCountExecutor.getCancelledCount()).isEqualTo(before + 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 커밋 안 된 변경이 카운트에 보이도록 순서대로 실행한다.
+     */
+    @Test
+    public void writeTransactionTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("parallelTeamB");
+        long before = parallelCountExecutor.getSequentialCount();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("update Member m set m.age = m.age + 1 where m.username = :username")
+                    .setParameter("username", "parallel1")
+                    .executeUpdate();
+
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+            assertThat(result.getTotalElements()).isEqualTo(60);
+            status.setRollbackOnly();
+        });
+
+        assertThat(parallelCountExecutor.getSequentialCount()).isEqualTo(before + 1);
+    }
+}
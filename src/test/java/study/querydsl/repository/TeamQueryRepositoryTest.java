@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.dto.TeamSlice;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.NPlusOneDetector;
+import study.querydsl.metrics.QueryScope;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    NPlusOneDetector nPlusOneDetector;
+
+    /**
+     * 다른 테스트가 만든 팀은 건너뛰도록 이 테스트의 첫 팀 바로 앞에서 시작한다.
+     */
+    String start;
+    Team big;
+    Team small;
+    Team empty;
+
+    @BeforeEach
+    public void before() {
+        big = new Team("bigTeam");
+        small = new Team("smallTeam");
+        empty = new Team("emptyTeam");
+        em.persist(big);
+        em.persist(small);
+        em.persist(empty);
+        for (int i = 0; i < 30; i++) {
+            em.persist(new Member("big" + i, i, big));
+        }
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("small" + i, i, small));
+        }
+        em.flush();
+        em.clear();
+        start = MemberCursor.encode(big.getId() - 1);
+    }
+
+    /**
+     * 팀 id 1 + 회원 수 1 + 회원 1 = 3 쿼리, 큰 팀도 membersPerTeam 명까지만 읽는다.
+     */
+    @Test
+    public void findTeamsTest() {
+        TeamSlice slice;
+        try (QueryScope scope = nPlusOneDetector.open("findTeamsTest")) {
+            slice = teamQueryRepository.findTeams(start, 0, 2, 5);
+            assertThat(scope.getStatementCount()).isEqualTo(3);
+            System.out.println("statements = " + scope.getStatementCount());
+        }
+
+        assertThat(slice.getContent()).extracting("teamname").containsExactly("bigTeam", "smallTeam");
+        assertThat(slice.isHasNext()).isTrue();
+
+        TeamMembersDto bigTeam = slice.getContent().get(0);
+        assertThat(bigTeam.getMemberCount()).isEqualTo(30);
+        assertThat(bigTeam.getMembers()).extracting("username").containsExactly("big0", "big1", "big2", "big3", "big4");
+        assertThat(bigTeam.isTruncated()).isTrue();
+
+        TeamMembersDto smallTeam = slice.getContent().get(1);
+        assertThat(smallTeam.getMemberCount()).isEqualTo(3);
+        assertThat(smallTeam.getMembers()).hasSize(3);
+        assertThat(smallTeam.isTruncated()).isFalse();
+
+        for (TeamMembersDto dto : slice.getContent()) {
+            System.out.println("dto = " + dto);
+        }
+    }
+
+    @Test
+    public void nextPageTest() {
+        TeamSlice first = teamQueryRepository.findTeams(start, 0, 2, 5);
+        TeamSlice next = teamQueryRepository.findTeams(first.getNextCursor(), 0, 2, 5);
+
+        assertThat(next.getContent()).extracting("teamname").startsWith("emptyTeam");
+        TeamMembersDto emptyTeam = next.getContent().get(0);
+        assertThat(emptyTeam.getMemberCount()).isZero();
+        assertThat(emptyTeam.getMembers()).isEmpty();
+    }
+
+    @Test
+    public void countOnlyTest() {
+        TeamSlice slice = teamQueryRepository.findTeams(start, 0, 1, 0);
+
+        assertThat(slice.getContent().get(0).getMemberCount()).isEqualTo(30);
+        assertThat(slice.getContent().get(0).getMembers()).isEmpty();
+    }
+
+    @Test
+    public void invalidCursorTest() {
+        assertThatThrownBy(() -> teamQueryRepository.findTeams("not-a-cursor", 0, 2, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.cache.HibernateCacheStats;
+import study.querydsl.repository.cache.SecondLevelCacheStatistics;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서 쓰이므로 트랜잭션마다 따로 조회한다. (@Transactional 을 쓰지 않음)
+ */
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    SecondLevelCacheStatistics cacheStatistics;
+
+    TransactionTemplate transactionTemplate;
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        // 통계가 꺼져 있으면 statement 수가 항상 0 이라 아래 비교가 의미 없이 통과한다.
+        assertThat(cacheStatistics.isEnabled()).isTrue();
+        assertThat(em.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getSessionFactoryOptions().isSecondLevelCacheEnabled()).isTrue();
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("cachedTeam");
+            em.persist(team);
+            return team.getId();
+        });
+        em.getEntityManagerFactory().getCache().evictAll();
+        cacheStatistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Team t where t.teamname like 'cachedTeam%'")
+                .executeUpdate());
+    }
+
+    /**
+     * 두 번째 조회는 다른 영속성 컨텍스트여도 DB 에 가지 않는다.
+     */
+    @Test
+    public void findByIdTest() {
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId));
+        long statements = cacheStatistics.getPrepareStatementCount();
+
+        Team team = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+
+        assertThat(team.getTeamname()).isEqualTo("cachedTeam");
+        assertThat(cacheStatistics.getPrepareStatementCount()).isEqualTo(statements);
+        HibernateCacheStats stats = cacheStatistics.regions().get(SecondLevelCacheStatistics.TEAM_REGION);
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        System.out.println("team region = " + stats);
+    }
+
+    /**
+     * 팀명 조회 결과는 쿼리 캐시에 남고, team 테이블이 바뀌면 버려진다.
+     */
+    @Test
+    public void queryCacheTest() {
+        assertThat(teamRepository.findByTeamname("cachedTeam")).hasSize(1);
+        long statements = cacheStatistics.getPrepareStatementCount();
+
+        assertThat(teamRepository.findByTeamname("cachedTeam")).hasSize(1);
+        assertThat(cacheStatistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(cacheStatistics.regions().get(SecondLevelCacheStatistics.TEAM_QUERY_REGION).getHitCount()).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> em.createQuery(
+                        "update Team t set t.teamname = 'cachedTeamRenamed' where t.id = :id")
+                .setParameter("id", teamId)
+                .executeUpdate());
+
+        assertThat(teamRepository.findByTeamname("cachedTeam")).isEmpty();
+        assertThat(teamRepository.findByTeamname("cachedTeamRenamed")).hasSize(1);
+        System.out.println("regions = " + cacheStatistics.regions());
+    }
+}
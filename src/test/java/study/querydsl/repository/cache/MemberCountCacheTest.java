@@ -0,0 +1,176 @@
+package study.querydsl.repository.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 쓰기 트랜잭션 안의 검색은 캐시를 거치지 않으므로, 데이터를 커밋해 두고 트랜잭션 밖에서 검색한다.
+ */
+@SpringBootTest
+class MemberCountCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberCountCache countCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    TransactionTemplate transactionTemplate;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        teamA = new Team("countTeamA");
+        teamB = new Team("countTeamB");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+
+            for (int i = 0; i < 3; i++) {
+                em.persist(new Member("countMember" + i, 20 + i, teamA));
+            }
+            em.persist(new Member("countMemberB", 30, teamB));
+        });
+
+        countCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from member_team where username like 'countMember%'");
+            jdbcTemplate.update("delete from member where username like 'countMember%'");
+            jdbcTemplate.update("delete from team where teamname like 'countTeam%'");
+        });
+        countCache.invalidateAll();
+    }
+
+    /**
+     * 같은 조건으로 다시 조회하면 카운트 쿼리 대신 캐시를 쓴다.
+     */
+    @Test
+    public void hitTest() {
+        MemberSearchCondition condition = teamCondition("countTeamA");
+        CacheStats before = countCache.stats();
+
+        assertThat(searchTotal(condition)).isEqualTo(3);
+        assertThat(searchTotal(condition)).isEqualTo(3);
+
+        // 빈 문자열 조건은 조건 없음과 같은 키
+        MemberSearchCondition sameCondition = teamCondition("countTeamA");
+        sameCondition.setUsername("");
+        assertThat(searchTotal(sameCondition)).isEqualTo(3);
+
+        CacheStats after = countCache.stats();
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(2);
+    }
+
+    /**
+     * save 로 추가된 회원이 걸리는 조건만 무효화된다.
+     */
+    @Test
+    public void saveInvalidationTest() {
+        MemberSearchCondition teamACondition = teamCondition("countTeamA");
+        MemberSearchCondition teamBCondition = teamCondition("countTeamB");
+        assertThat(searchTotal(teamACondition)).isEqualTo(3);
+        assertThat(searchTotal(teamBCondition)).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.find(Team.class, teamA.getId());
+            memberRepository.save(new Member("countMember3", 23, team));
+            memberJpaRepository.save(new Member("countMember4", 24, team));
+        });
+
+        CacheStats before = countCache.stats();
+        assertThat(searchTotal(teamACondition)).isEqualTo(5);
+        assertThat(searchTotal(teamBCondition)).isEqualTo(1);
+
+        CacheStats after = countCache.stats();
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(1);
+    }
+
+    /**
+     * 쓰기 트랜잭션에서는 아직 flush 안 된 회원도 건수에 들어가고,
+     * 그 건수는 커밋 전이므로 다른 요청이 보는 캐시에 넣지 않는다.
+     */
+    @Test
+    public void unflushedChangeTest() {
+        MemberSearchCondition condition = teamCondition("countTeamA");
+        assertThat(searchTotal(condition)).isEqualTo(3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("countMember3", 23, em.find(Team.class, teamA.getId())));
+
+            assertThat(searchTotal(condition)).isEqualTo(4);
+            assertThat(countCache.getIfPresent(condition)).isNull();
+            status.setRollbackOnly();
+        });
+
+        assertThat(searchTotal(condition)).isEqualTo(3);
+    }
+
+    /**
+     * 벌크 수정은 어떤 행이 바뀌었는지 모르므로 전체 무효화
+     */
+    @Test
+    public void bulkUpdateInvalidationTest() {
+        MemberSearchCondition condition = teamCondition("countTeamA");
+        condition.setAgeGoe(21);
+        assertThat(searchTotal(condition)).isEqualTo(2);
+
+        transactionTemplate.executeWithoutResult(status ->
+                memberJpaRepository.bulkUpdate(update -> update.set(member.age, member.age.add(1))
+                        .where(member.username.startsWith("countMember"))));
+
+        assertThat(searchTotal(condition)).isEqualTo(3);
+    }
+
+    private long searchTotal(MemberSearchCondition condition) {
+        // 페이지 크기보다 결과가 많아야 카운트가 필요하다.
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        return page.getTotalElements();
+    }
+
+    private MemberSearchCondition teamCondition(String teamname) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname(teamname);
+        return condition;
+    }
+}
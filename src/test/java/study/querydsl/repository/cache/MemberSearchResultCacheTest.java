@@ -0,0 +1,170 @@
+package study.querydsl.repository.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 쓰기 트랜잭션 안의 검색은 캐시를 거치지 않으므로, 데이터를 커밋해 두고 트랜잭션 밖에서 검색한다.
+ */
+@SpringBootTest(properties = "member.search.result-cache.enabled=true")
+class MemberSearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchResultCache resultCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    TransactionTemplate transactionTemplate;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        teamA = new Team("resultTeamA");
+        teamB = new Team("resultTeamB");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("resultMember1", 10, teamA));
+            em.persist(new Member("resultMember2", 20, teamA));
+            em.persist(new Member("resultMember3", 30, teamB));
+        });
+
+        resultCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from member_team where username like 'resultMember%'");
+            jdbcTemplate.update("delete from member where username like 'resultMember%'");
+            jdbcTemplate.update("delete from team where teamname like 'resultTeam%'");
+        });
+        resultCache.invalidateAll();
+    }
+
+    /**
+     * search, serarch 가 같은 캐시를 쓴다.
+     */
+    @Test
+    public void hitTest() {
+        MemberSearchCondition condition = teamCondition("resultTeamA");
+        CacheStats before = resultCache.stats();
+
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        List<MemberTeamDto> second = memberRepository.serarch(condition);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).extracting("username").containsExactlyInAnyOrder("resultMember1", "resultMember2");
+
+        CacheStats after = resultCache.stats();
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(1);
+
+        assertThatThrownBy(() -> first.add(first.get(0)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * 추가된 회원이 걸릴 수 있는 조건만 무효화 (팀명, 나이 범위)
+     */
+    @Test
+    public void preciseInvalidationTest() {
+        MemberSearchCondition teamACondition = teamCondition("resultTeamA");
+        MemberSearchCondition teamBCondition = teamCondition("resultTeamB");
+        MemberSearchCondition youngCondition = teamCondition("resultTeamA");
+        youngCondition.setAgeLoe(15);
+
+        memberJpaRepository.search(teamACondition);
+        memberJpaRepository.search(teamBCondition);
+        memberJpaRepository.search(youngCondition);
+
+        // resultTeamA, 25살 -> 나이 범위가 없는 resultTeamA 조건만 해당
+        transactionTemplate.executeWithoutResult(status ->
+                em.persist(new Member("resultMember4", 25, em.find(Team.class, teamA.getId()))));
+
+        CacheStats before = resultCache.stats();
+        assertThat(memberJpaRepository.search(teamACondition)).hasSize(3);
+        assertThat(memberJpaRepository.search(teamBCondition)).hasSize(1);
+        assertThat(memberJpaRepository.search(youngCondition)).hasSize(1);
+
+        CacheStats after = resultCache.stats();
+        assertThat(after.getMissCount() - before.getMissCount()).isEqualTo(1);
+        assertThat(after.getHitCount() - before.getHitCount()).isEqualTo(2);
+    }
+
+    /**
+     * 쓰기 트랜잭션의 검색 결과(커밋 전 회원 포함)는 다른 요청이 보는 캐시에 넣지 않는다.
+     */
+    @Test
+    public void readWriteTransactionTest() {
+        MemberSearchCondition condition = teamCondition("resultTeamA");
+        assertThat(memberJpaRepository.search(condition)).hasSize(2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("resultMember4", 25, em.find(Team.class, teamA.getId())));
+
+            assertThat(memberJpaRepository.search(condition)).hasSize(3);
+            assertThat(resultCache.getIfPresent(condition)).isNull();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberJpaRepository.search(condition)).hasSize(2);
+    }
+
+    @Test
+    public void bulkUpdateInvalidationTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("resultMember1");
+        condition.setAgeGoe(20);
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+
+        transactionTemplate.executeWithoutResult(status ->
+                memberJpaRepository.bulkUpdate(update -> update.set(member.age, member.age.add(10))
+                        .where(member.username.startsWith("resultMember"))));
+
+        assertThat(memberJpaRepository.search(condition)).hasSize(1);
+    }
+
+    private MemberSearchCondition teamCondition(String teamname) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname(teamname);
+        return condition;
+    }
+}
@@ -0,0 +1,205 @@
+package study.querydsl.repository.columnar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 인덱스는 커밋된 변경만 반영하므로 데이터를 커밋해 두고 테스트한다. (@Transactional 을 쓰지 않음)
+ * max-delta 를 작게 두어 compaction 도 함께 일어나게 한다.
+ */
+@SpringBootTest(properties = {
+        "member.columnar-index.enabled=true",
+        "member.columnar-index.max-delta=5",
+        "member.search.count-cache.enabled=false"
+})
+class MemberColumnarIndexTest {
+
+    private static final List<String> TEAMS = Arrays.asList("columnarTeamA", "columnarTeamB");
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberColumnarIndex memberColumnarIndex;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("columnarTeamA");
+            Team teamB = new Team("columnarTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 20; i++) {
+                em.persist(new Member("columnar" + i, i * 5, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("columnarNoTeam", 30));
+        });
+    }
+
+    /**
+     * 이벤트로 지우므로 인덱스에서도 빠진다.
+     */
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like 'columnar%'", Member.class)
+                    .getResultList()
+                    .forEach(em::remove);
+            em.flush();
+            em.createQuery("select t from Team t where t.teamname in :teamnames", Team.class)
+                    .setParameter("teamnames", TEAMS)
+                    .getResultList()
+                    .forEach(em::remove);
+        });
+    }
+
+    @Test
+    public void searchTest() {
+        assertThat(memberColumnarIndex.canServe()).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("columnarTeamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(60);
+
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        // 0, 10, ... 90 중 20 ~ 60 -> columnar4, 6, 8, 10, 12
+        assertThat(result).extracting("username")
+                .containsExactly("columnar4", "columnar6", "columnar8", "columnar10", "columnar12");
+        assertThat(result).extracting("teamname").containsOnly("columnarTeamA");
+        assertSameAsDatabase(condition);
+    }
+
+    @Test
+    public void searchByUsernameTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("columnarNoTeam");
+
+        List<MemberTeamDto> result = memberRepository.serarch(condition);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeamId()).isNull();
+        assertThat(result.get(0).getTeamname()).isNull();
+    }
+
+    @Test
+    public void searchPageTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("columnarTeamB");
+
+        Page<MemberTeamDto> first = memberRepository.searchPageComplex(condition, PageRequest.of(0, 4));
+        Page<MemberTeamDto> last = memberRepository.searchPageSimple(condition, PageRequest.of(2, 4));
+
+        assertThat(first.getTotalElements()).isEqualTo(10);
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("columnar1", "columnar3", "columnar5", "columnar7");
+        assertThat(last.getContent()).extracting("username").containsExactly("columnar17", "columnar19");
+    }
+
+    /**
+     * 커밋된 수정/삭제가 검색 결과에 반영된다.
+     */
+    @Test
+    public void writeTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = em.createQuery("select m from Member m where m.username = 'columnar1'", Member.class)
+                    .getSingleResult();
+            Team teamA = em.createQuery("select t from Team t where t.teamname = 'columnarTeamA'", Team.class)
+                    .getSingleResult();
+            member1.setAge(100);
+            member1.setTeam(teamA);
+
+            em.remove(em.createQuery("select m from Member m where m.username = 'columnar2'", Member.class)
+                    .getSingleResult());
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("columnarTeamA");
+        condition.setAgeGoe(0);
+        condition.setAgeLoe(10);
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("columnar0");
+
+        condition.setAgeLoe(null);
+        condition.setAgeGoe(100);
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("columnar1");
+        assertSameAsDatabase(condition);
+        System.out.println("snapshot = " + memberColumnarIndex.getSnapshotSize() + ", delta = " + memberColumnarIndex.getDeltaSize());
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 커밋 안 된 변경이 보이도록 DB 로 조회한다.
+     */
+    @Test
+    public void writeTransactionTest() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("columnarUncommitted", 1));
+            assertThat(memberColumnarIndex.canServe()).isFalse();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername("columnarUncommitted");
+            assertThat(memberJpaRepository.search(condition)).hasSize(1);
+        });
+    }
+
+    /**
+     * 벌크 연산 뒤에는 다시 읽을 때까지 DB 로 조회하고, 다시 읽은 뒤에는 바뀐 값으로 응답한다.
+     */
+    @Test
+    public void bulkUpdateTest() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status ->
+                memberJpaRepository.bulkUpdate(update -> update.set(member.age, member.age.add(1))
+                        .where(member.username.like("columnar%"))));
+
+        for (int i = 0; i < 100 && !memberColumnarIndex.canServe(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(memberColumnarIndex.canServe()).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("columnar0");
+        assertThat(memberColumnarIndex.search(condition)).extracting("age").containsExactly(1);
+    }
+
+    private void assertSameAsDatabase(MemberSearchCondition condition) {
+        List<MemberTeamDto> fromIndex = memberColumnarIndex.search(condition);
+        List<MemberTeamDto> fromDatabase = memberJpaRepository.searchByBuilder(condition);
+        assertThat(fromIndex).extracting("memberId")
+                .containsExactlyInAnyOrderElementsOf(fromDatabase.stream()
+                        .map(MemberTeamDto::getMemberId)
+                        .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,175 @@
+package study.querydsl.repository.readmodel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberTeamView;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkLoader;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest(properties = "member.read-model.enabled=true")
+@Transactional
+class MemberTeamReadModelTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTeamReadModelJob memberTeamReadModelJob;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    JdbcTemplate jdbcTemplate;
+    Member member1;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Team teamA = new Team("readTeamA");
+        Team teamB = new Team("readTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("read1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("read2", 20, teamA));
+        em.persist(new Member("read3", 30, teamB));
+        em.persist(new Member("read4", 40));
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * insert 가 같은 트랜잭션에서 member_team 에 반영되고, 검색이 member_team 을 조회한다.
+     */
+    @Test
+    public void searchTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamname("readTeamA");
+
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("read1", "read2");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).hasSize(1);
+
+        assertThat(em.find(MemberTeamView.class, member1.getId()).getTeamname()).isEqualTo("readTeamA");
+        assertThat(memberTeamReadModelJob.check().isConsistent()).isTrue();
+    }
+
+    /**
+     * 수정/삭제/벌크 수정도 읽기 모델에 반영된다.
+     */
+    @Test
+    public void maintenanceTest() {
+        Member findMember = em.find(Member.class, member1.getId());
+        findMember.setAge(11);
+        findMember.setTeam(em.getReference(Team.class, findTeamId("readTeamB")));
+        em.flush();
+        em.clear();
+
+        MemberTeamView view = em.find(MemberTeamView.class, member1.getId());
+        assertThat(view.getAge()).isEqualTo(11);
+        assertThat(view.getTeamname()).isEqualTo("readTeamB");
+
+        memberJpaRepository.bulkUpdate(update -> update.set(member.age, member.age.add(100))
+                .where(member.username.startsWith("read")));
+        em.clear();
+        assertThat(em.find(MemberTeamView.class, member1.getId()).getAge()).isEqualTo(111);
+
+        em.remove(em.find(Member.class, member1.getId()));
+        em.flush();
+        em.clear();
+        assertThat(em.find(MemberTeamView.class, member1.getId())).isNull();
+
+        ConsistencyReport report = memberTeamReadModelJob.check();
+        System.out.println("report = " + report);
+        assertThat(report.isConsistent()).isTrue();
+    }
+
+    /**
+     * 점검기가 어긋난 행을 찾고, backfill 이 맞춘다.
+     */
+    @Test
+    public void backfillTest() {
+        jdbcTemplate.update("update member_team set age = 999 where username = 'read2'");
+        jdbcTemplate.update("delete from member_team where username = 'read3'");
+        jdbcTemplate.update("insert into member_team (member_id, username, age) values (-1, 'ghost', 1)");
+
+        ConsistencyReport report = memberTeamReadModelJob.check();
+        assertThat(report.getMismatched()).isEqualTo(1);
+        assertThat(report.getMissing()).isEqualTo(1);
+        assertThat(report.getOrphaned()).isEqualTo(1);
+
+        long changed = memberTeamReadModelJob.backfill();
+
+        assertThat(changed).isEqualTo(4); // mismatched 1 (delete + insert), missing 1, orphaned 1
+        assertThat(memberTeamReadModelJob.check().isConsistent()).isTrue();
+    }
+
+    /**
+     * 대량 적재는 행마다 쓰지 않고 chunk 마다 sync 로 member_team 에 반영한다.
+     * 적재는 별도 트랜잭션으로 커밋되므로 직접 지운다.
+     */
+    @Test
+    public void bulkLoadTest() {
+        try {
+            memberBulkLoader.load(Collections.singletonList("readBulkTeam"), 30,
+                    i -> new MemberBulkLoader.Row("readBulk" + i, (int) i, "readBulkTeam"));
+
+            Long count = jdbcTemplate.queryForObject(
+                    "select count(*) from member_team where teamname = 'readBulkTeam'", Long.class);
+            assertThat(count).isEqualTo(30);
+        } finally {
+            TransactionTemplate cleanup = new TransactionTemplate(transactionManager);
+            cleanup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            cleanup.executeWithoutResult(status -> {
+                jdbcTemplate.update("delete from member_team where username like 'readBulk%'");
+                jdbcTemplate.update("delete from member where username like 'readBulk%'");
+                jdbcTemplate.update("delete from team where teamname = 'readBulkTeam'");
+            });
+        }
+    }
+
+    private Long findTeamId(String teamname) {
+        return em.createQuery("select t.id from Team t where t.teamname = :teamname", Long.class)
+                .setParameter("teamname", teamname)
+                .getSingleResult();
+    }
+}